@@ -0,0 +1,330 @@
+package br.com.erbium.core;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link ReportRouter} decorator that moves the actual writing off the request threads.
+ * <p>
+ * Messages are published into a bounded, lock-free ring buffer and routed by a single consumer thread,
+ * which hands them to the wrapped router in batches (see {@link ReportRouter#route(List)}). Producers only
+ * contend on one atomic counter instead of the {@code PrintStream} lock. The consumer thread is started
+ * with the first message.
+ * <p>
+ * What happens when the buffer is full depends on the {@link OverflowPolicy}. Messages logged as
+ * {@link LogType#ERROR} or {@link LogType#SEVERE_WARNING} are never dropped.
+ * <p>
+ * {@link #flush()} waits until everything published so far has been routed; {@link #close()} flushes and
+ * stops the consumer thread. {@link Routers#close()} closes all asynchronous routers, and is called when the
+ * {@link Workspace} is closed.
+ */
+public class AsyncReportRouter implements ReportRouter, AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final int DEFAULT_SAMPLE_RATE = 10;
+
+    private static final int MAX_BATCH = 512;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    /**
+     * What a producer does when the ring buffer is full.
+     */
+    public enum OverflowPolicy {
+        /** Wait until the consumer frees a slot. Nothing is lost. */
+        BLOCK,
+        /** Discard the message. */
+        DROP,
+        /** Wait for one in every {@code sampleRate} overflowing messages and discard the others. */
+        SAMPLE
+    }
+
+    @Getter
+    private final ReportRouter delegate;
+    @Getter
+    private final OverflowPolicy overflowPolicy;
+    private final int sampleRate;
+
+    // Bounded multi-producer ring: a slot may be written at position p when sequences[p & mask] == p,
+    // and read when it equals p + 1
+    private final int mask;
+    private final AtomicReferenceArray<LogEvent> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong overflows = new AtomicLong();
+
+    private volatile Thread consumer;
+    private final Object consumerLock = new Object();
+    private volatile boolean consumerParked;
+    private volatile boolean closed;
+    // Producers between their closed check and the end of their offer; close() waits for them
+    private final AtomicInteger publishers = new AtomicInteger();
+
+    public AsyncReportRouter(@NonNull ReportRouter delegate) {
+        this(delegate, DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+    }
+
+    public AsyncReportRouter(@NonNull ReportRouter delegate, int capacity, @NonNull OverflowPolicy overflowPolicy) {
+        this(delegate, capacity, overflowPolicy, DEFAULT_SAMPLE_RATE);
+    }
+
+    /**
+     * @param delegate       The router that does the actual writing.
+     * @param capacity       The ring buffer size, rounded up to a power of two.
+     * @param overflowPolicy What to do when the buffer is full.
+     * @param sampleRate     For {@link OverflowPolicy#SAMPLE}, one in this many overflowing messages is kept.
+     */
+    public AsyncReportRouter(@NonNull ReportRouter delegate, int capacity, @NonNull OverflowPolicy overflowPolicy, int sampleRate) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2.");
+        }
+        if (sampleRate < 1) {
+            throw new IllegalArgumentException("Sample rate must be at least 1.");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.delegate = delegate;
+        this.overflowPolicy = overflowPolicy;
+        this.sampleRate = sampleRate;
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    @Override
+    public void route(LogType level, LogItem item, String message) {
+        LogEvent event = new LogEvent(level, item, message);
+        publishers.incrementAndGet();
+        try {
+            if (closed) {
+                routeSynchronously(event);
+                return;
+            }
+            startConsumer();
+            if (offer(event)) {
+                return;
+            }
+
+            boolean wait = switch (overflowPolicy) {
+                case BLOCK -> true;
+                case DROP -> false;
+                case SAMPLE -> overflows.getAndIncrement() % sampleRate == 0;
+            };
+            if (wait || level == LogType.ERROR || level == LogType.SEVERE_WARNING) {
+                while (!offer(event)) {
+                    if (closed) {
+                        routeSynchronously(event);
+                        return;
+                    }
+                    LockSupport.parkNanos(FULL_PARK_NANOS);
+                }
+            } else {
+                dropped.increment();
+            }
+        } finally {
+            publishers.decrementAndGet();
+        }
+    }
+
+    /**
+     * Late messages are written synchronously rather than lost.
+     */
+    private void routeSynchronously(LogEvent event) {
+        synchronized (this) {
+            delegate.route(List.of(event));
+        }
+    }
+
+    private void startConsumer() {
+        if (consumer != null) {
+            return;
+        }
+        synchronized (consumerLock) {
+            if (consumer == null) {
+                consumer = Thread.ofPlatform()
+                        .name("erbium-router-" + delegate.getName())
+                        .daemon(true)
+                        .start(this::consume);
+            }
+        }
+    }
+
+    private boolean offer(LogEvent event) {
+        long position = tail.get();
+        while (true) {
+            int index = (int) position & mask;
+            long sequence = sequences.get(index);
+            if (sequence == position) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots.set(index, event);
+                    sequences.set(index, position + 1);
+                    if (consumerParked) {
+                        LockSupport.unpark(consumer);
+                    }
+                    return true;
+                }
+                position = tail.get();
+            } else if (sequence < position) {
+                // The slot still holds an unread message from the previous lap
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    private void consume() {
+        List<LogEvent> batch = new ArrayList<>(MAX_BATCH);
+        while (true) {
+            if (drain(batch)) {
+                continue;
+            }
+            long position = head;
+            if (closed && tail.get() == position) {
+                return;
+            }
+            consumerParked = true;
+            if (tail.get() == position) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            consumerParked = false;
+        }
+    }
+
+    /**
+     * Routes up to {@link #MAX_BATCH} published messages. Only called by one thread at a time.
+     *
+     * @return true if anything was routed.
+     */
+    private boolean drain(List<LogEvent> batch) {
+        long position = head;
+        while (batch.size() < MAX_BATCH) {
+            int index = (int) position & mask;
+            if (sequences.get(index) != position + 1) {
+                break;
+            }
+            batch.add(slots.get(index));
+            slots.set(index, null);
+            sequences.set(index, position + mask + 1);
+            position++;
+        }
+        if (batch.isEmpty()) {
+            return false;
+        }
+
+        try {
+            synchronized (this) {
+                delegate.route(batch);
+            }
+        } catch (RuntimeException e) {
+            // A failing sink must not stop the consumer
+            System.err.println("Warning: router " + delegate.getName() + " failed to write " + batch.size()
+                    + " messages: " + e + ". The messages were discarded.");
+        }
+        batch.clear();
+        head = position;
+        return true;
+    }
+
+    /**
+     * Waits until every message published before this call has been routed.
+     */
+    public void flush() {
+        long target = tail.get();
+        Thread thread = consumer;
+        while (thread != null && head < target && thread.isAlive()) {
+            LockSupport.unpark(thread);
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+    }
+
+    /**
+     * @return The number of messages discarded because the buffer was full.
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Flushes pending messages, commits the wrapped router and stops the consumer thread.
+     * Messages routed afterwards are written synchronously.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        // Producers that saw the router open may still be publishing; none can start once they are done
+        while (publishers.get() > 0) {
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        Thread thread = consumer;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // Messages published while the consumer was stopping
+        List<LogEvent> batch = new ArrayList<>(MAX_BATCH);
+        while (drain(batch)) {
+            // keep draining
+        }
+        delegate.commit();
+    }
+
+    @Override
+    public void commit() {
+        flush();
+        delegate.commit();
+    }
+
+    @Override
+    public void setTargetOutput(int targetOutput) {
+        delegate.setTargetOutput(targetOutput);
+    }
+
+    @Override
+    public int getTargetOutput() {
+        return delegate.getTargetOutput();
+    }
+
+    @Override
+    public void route(String message) {
+        route(LogType.INFO, LogItem.MESSAGE, message);
+    }
+
+    @Override
+    public void route(LogType level, String message) {
+        route(level, LogItem.MESSAGE, message);
+    }
+
+    @Override
+    public void route(LogItem item, String message) {
+        route(LogType.INFO, item, message);
+    }
+
+    @Override
+    public String getName() {
+        return "Async" + delegate.getName();
+    }
+}
@@ -14,8 +14,14 @@ package br.com.erbium.core;
 
 import lombok.NonNull;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 /**
  * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
@@ -32,9 +38,44 @@ import java.util.Map;
 
 /**
  * Abstract base class for environment variable management in ERBIUM.
+ * <p>
+ * Environments are layered: an environment may have a parent scope (workspace, collection, iteration,
+ * endpoint) and variables not defined locally are read through to it. Writes always go to the local
+ * overlay, so a child scope never changes its parents, and removing a variable that a parent defines
+ * records a tombstone that hides it. A scope holds no copy of its parents' variables: creating one is
+ * a single allocation and discarding it is free.
+ * <p>
+ * Environments are safe to share between threads. Each scope publishes its variables as an immutable
+ * version through an {@link AtomicReference}; writers copy the current version and swap it in with a
+ * compare-and-set, and readers never lock. A render reads one version of every scope in the chain, so
+ * it never mixes values from before and after a concurrent write. {@link #compareAndSet} and
+ * {@link #compute} update a variable atomically, e.g. for counters and tokens shared by parallel iterations.
  */
 public abstract class BaseEnvironment {
-    protected final Map<String, Object> map = new HashMap<>();
+    // Hides a variable defined by a parent scope
+    private static final Object TOMBSTONE = new Object();
+
+    // Never mutated once published
+    private final AtomicReference<Map<String, Object>> variables = new AtomicReference<>(Collections.emptyMap());
+    private final BaseEnvironment parent;
+
+    protected BaseEnvironment() {
+        this(null);
+    }
+
+    /**
+     * @param parent The scope variables are read through to, or null.
+     */
+    protected BaseEnvironment(BaseEnvironment parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * @return The parent scope, or null if this is a root scope.
+     */
+    protected BaseEnvironment parent() {
+        return parent;
+    }
 
     
     /**
@@ -46,13 +87,13 @@ public abstract class BaseEnvironment {
      * @throws IllegalStateException if the value type is not supported.
      */
     public BaseEnvironment set(@NonNull String key, Object value) {
-        if (value == null || value instanceof String || value instanceof Integer || value instanceof Long || value instanceof Double || value instanceof Boolean) {
-
-
-            key = key.replaceAll("\\{\\{", "").replaceAll("}}", "").trim();
-            map.put(key, value); // Use put; if key exists, it will be replaced. No need for try-catch with replace.
-        } else
-            throw new IllegalStateException("Object type not supported.");
+        requireSupported(value);
+        String name = normalizeKey(key);
+        update(current -> {
+            Map<String, Object> next = new HashMap<>(current);
+            next.put(name, value); // Use put; if key exists, it will be replaced.
+            return next;
+        });
         return this;
     }
 
@@ -64,12 +105,186 @@ public abstract class BaseEnvironment {
      */
     public void remove(String key) {
         try {
-            map.remove(key);
+            BaseEnvironment parent = parent();
+            boolean hide = parent != null && parent.lookup(key) != VariableTemplate.MISSING;
+            update(current -> {
+                if (!hide && !current.containsKey(key)) {
+                    return current;
+                }
+                Map<String, Object> next = new HashMap<>(current);
+                if (hide) {
+                    next.put(key, TOMBSTONE);
+                } else {
+                    next.remove(key);
+                }
+                return next;
+            });
         } catch (Exception ignore) {
 
         }
     }
 
+    /**
+     * Atomically sets a variable in this scope if the value currently visible for it equals the expected one.
+     * <p>
+     * Like {@link #compute}, it works on the visible value, as {@link #get} reads it: the value of this scope,
+     * else the one inherited from its parents, else null. The new value is always written to this scope.
+     * Only writes to this scope are atomic with the comparison; concurrent writes to parent scopes are not.
+     *
+     * @param key      The variable name.
+     * @param expected The expected current value.
+     * @param value    The new value.
+     * @return true if the variable was updated.
+     * @throws IllegalStateException if the value type is not supported.
+     */
+    public boolean compareAndSet(@NonNull String key, Object expected, Object value) {
+        requireSupported(value);
+        String name = normalizeKey(key);
+        while (true) {
+            Map<String, Object> current = variables.get();
+            if (!Objects.equals(visibleValue(current, name), expected)) {
+                return false;
+            }
+            Map<String, Object> next = new HashMap<>(current);
+            next.put(name, value);
+            if (variables.compareAndSet(current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Atomically replaces a variable with the result of the given function, which receives the value
+     * currently visible for it, as in {@link #compareAndSet}. The result is written to this scope.
+     * The function may be called more than once under contention, so it must not have side effects.
+     *
+     * @param key      The variable name.
+     * @param function Computes the new value from the current one.
+     * @return The new value.
+     * @throws IllegalStateException if the computed value type is not supported.
+     */
+    public Object compute(@NonNull String key, @NonNull UnaryOperator<Object> function) {
+        String name = normalizeKey(key);
+        while (true) {
+            Map<String, Object> current = variables.get();
+            Object value = function.apply(visibleValue(current, name));
+            requireSupported(value);
+            Map<String, Object> next = new HashMap<>(current);
+            next.put(name, value);
+            if (variables.compareAndSet(current, next)) {
+                return value;
+            }
+        }
+    }
+
+    /**
+     * @return The value visible for the variable given this scope's current version: its own value,
+     * else the inherited one, or null if undefined.
+     */
+    private Object visibleValue(Map<String, Object> current, String name) {
+        Object local = current.getOrDefault(name, VariableTemplate.MISSING);
+        if (local == TOMBSTONE) {
+            return null;
+        }
+        if (local != VariableTemplate.MISSING) {
+            return local;
+        }
+        BaseEnvironment parent = parent();
+        Object inherited = parent == null ? VariableTemplate.MISSING : parent.lookup(name);
+        return inherited == VariableTemplate.MISSING ? null : inherited;
+    }
+
+    private void update(UnaryOperator<Map<String, Object>> change) {
+        while (true) {
+            Map<String, Object> current = variables.get();
+            Map<String, Object> next = change.apply(current);
+            if (next == current || variables.compareAndSet(current, next)) {
+                return;
+            }
+        }
+    }
+
+    private static void requireSupported(Object value) {
+        if (!(value == null || value instanceof String || value instanceof Integer || value instanceof Long || value instanceof Double || value instanceof Boolean)) {
+            throw new IllegalStateException("Object type not supported.");
+        }
+    }
+
+    private static String normalizeKey(String key) {
+        return key.replaceAll("\\{\\{", "").replaceAll("}}", "").trim();
+    }
+
+    /**
+     * Copies the variables defined in the other scope into this one, tombstones included.
+     */
+    void copyLocalsFrom(@NonNull BaseEnvironment other) {
+        Map<String, Object> locals = other.variables.get();
+        update(current -> {
+            Map<String, Object> next = new HashMap<>(current);
+            next.putAll(locals);
+            return next;
+        });
+    }
+
+    /**
+     * Resolves a variable through this scope and its parents.
+     *
+     * @param name The variable name, without braces.
+     * @return The value (possibly null), or {@link VariableTemplate#MISSING} if no scope defines it.
+     */
+    protected Object lookup(String name) {
+        for (BaseEnvironment scope = this; scope != null; scope = scope.parent()) {
+            Object value = scope.variables.get().getOrDefault(name, VariableTemplate.MISSING);
+            if (value == TOMBSTONE) {
+                return VariableTemplate.MISSING;
+            }
+            if (value != VariableTemplate.MISSING) {
+                return value;
+            }
+        }
+        return VariableTemplate.MISSING;
+    }
+
+    /**
+     * Resolves a variable defined in this scope only.
+     *
+     * @return The value (possibly null), or {@link VariableTemplate#MISSING} if this scope does not define it.
+     */
+    protected Object lookupLocal(String name) {
+        Object value = variables.get().getOrDefault(name, VariableTemplate.MISSING);
+        return value == TOMBSTONE ? VariableTemplate.MISSING : value;
+    }
+
+    /**
+     * Captures the current version of every scope in the chain, starting with this one.
+     */
+    private List<Map<String, Object>> versions() {
+        List<Map<String, Object>> versions = new ArrayList<>(4);
+        for (BaseEnvironment scope = this; scope != null; scope = scope.parent()) {
+            versions.add(scope.variables.get());
+        }
+        return versions;
+    }
+
+    /**
+     * @return A resolver reading one consistent version of the scope chain.
+     */
+    private VariableTemplate.Resolver snapshot() {
+        List<Map<String, Object>> versions = versions();
+        return name -> {
+            for (Map<String, Object> version : versions) {
+                Object value = version.getOrDefault(name, VariableTemplate.MISSING);
+                if (value == TOMBSTONE) {
+                    return VariableTemplate.MISSING;
+                }
+                if (value != VariableTemplate.MISSING) {
+                    return value;
+                }
+            }
+            return VariableTemplate.MISSING;
+        };
+    }
+
     
     /**
      * Gets the value of a variable from the environment.
@@ -99,19 +314,7 @@ public abstract class BaseEnvironment {
      * @return The string with variables replaced.
      */
     public String replaceVars(@NonNull String input) {
-
-        String result = input;
-
-
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-            String key = entry.getKey();
-            String value = entry.getValue() == null ? "" : String.valueOf(entry.getValue());
-
-            result = result.replace("{{" + key + "}}", value);
-
-        }
-
-        return result;
+        return VariableTemplate.compile(input).render(snapshot(), "");
     }
 
     
@@ -122,29 +325,54 @@ public abstract class BaseEnvironment {
      * @return The string with variables replaced, using "null" for nulls.
      */
     public String replaceVarsAcceptNull(@NonNull String input) {
+        return VariableTemplate.compile(input).render(snapshot(), "null");
+    }
 
-        String result = input;
-
-
-        for (Map.Entry<String, Object> entry : map.entrySet()) {
-            String key = entry.getKey();
-            String value = entry.getValue() == null ? "null" : String.valueOf(entry.getValue());
+    /**
+     * Renders an already compiled template against this environment, like {@link #replaceVars(String)}.
+     *
+     * @param template The compiled template.
+     * @return The rendered string.
+     */
+    public String render(@NonNull VariableTemplate template) {
+        return template.render(snapshot(), "");
+    }
 
-            result = result.replace("{{" + key + "}}", value);
-        }
+    /**
+     * Binds a JSON body template against one consistent version of this environment.
+     */
+    String render(@NonNull JsonBodyTemplate template) {
+        return template.render(snapshot());
+    }
 
-        return result;
+    /**
+     * Copies a parsed JSON body tree with its placeholders bound against one consistent version of this
+     * environment (see {@link JsonBodyTemplate#bind(Object, VariableTemplate.Resolver)}).
+     */
+    Object bind(Object tree) {
+        return JsonBodyTemplate.bind(tree, snapshot());
     }
 
     
     /**
-     * Returns a copy of all variables in the environment.
+     * Returns a copy of all variables visible in the environment, including those of the parent scopes.
      *
      * @param <T> The type of the values (for compatibility).
      * @return A map of all variables.
      */
     public <T> Map<String, Object> getAllVariables() {
-        return new HashMap<>(map);
+        List<Map<String, Object>> versions = versions();
+        Map<String, Object> all = new HashMap<>();
+        for (int i = versions.size() - 1; i >= 0; i--) {
+            for (Map.Entry<String, Object> entry : versions.get(i).entrySet()) {
+                if (entry.getValue() == TOMBSTONE) {
+                    all.remove(entry.getKey());
+                } else {
+                    all.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        return all;
     }
 
     /**
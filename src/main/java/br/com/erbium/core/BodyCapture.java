@@ -0,0 +1,255 @@
+package br.com.erbium.core;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.experimental.Accessors;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ByteString;
+import okio.HashingSink;
+import okio.Okio;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+
+/**
+ * How much of a response body is kept, set per endpoint or per collection.
+ * <p>
+ * By default the whole body is read into {@link ErbiumResponse#body()}. The other policies stream the body
+ * from the connection in small chunks, so large downloads and binary payloads do not have to fit in memory:
+ * <ul>
+ *     <li>{@link #firstBytes(long)} keeps only the beginning of the body as text;</li>
+ *     <li>{@link #discard()} only counts the bytes;</li>
+ *     <li>{@link #hashOnly()} keeps the SHA-256 hash of the body;</li>
+ *     <li>{@link #toFile(Path)} writes the body to a file (see {@link ErbiumResponse#bodyFile()}).</li>
+ * </ul>
+ * Whatever the policy, the whole body is read, so the connection can be reused, and its size and decoding
+ * time are reported in {@link ErbiumResponse#bodySize()} and {@link ErbiumResponse#bodyDecodeNanos()}.
+ * Extractions ({@code rset}/{@code qrset}) only see what was kept as text.
+ */
+@Getter @Accessors(fluent = true)
+public final class BodyCapture {
+
+    private static final BodyCapture FULL = new BodyCapture(Mode.FULL, Long.MAX_VALUE, null);
+    private static final BodyCapture DISCARD = new BodyCapture(Mode.DISCARD, 0, null);
+    private static final BodyCapture HASH_ONLY = new BodyCapture(Mode.HASH_ONLY, 0, null);
+    private static final ByteString UTF_8_BOM = ByteString.decodeHex("efbbbf");
+    private static final ByteString UTF_16_BE_BOM = ByteString.decodeHex("feff");
+    private static final ByteString UTF_16_LE_BOM = ByteString.decodeHex("fffe");
+    private static final ByteString UTF_32_BE_BOM = ByteString.decodeHex("0000feff");
+    private static final ByteString UTF_32_LE_BOM = ByteString.decodeHex("fffe0000");
+    private static final long CHUNK_SIZE = 8192;
+
+    public enum Mode {
+        /** Keep the whole body as text. */
+        FULL,
+        /** Keep the first bytes as text and count the rest. */
+        FIRST_BYTES,
+        /** Count the bytes only. */
+        DISCARD,
+        /** Keep the SHA-256 hash only. */
+        HASH_ONLY,
+        /** Write the body to a file. */
+        TO_FILE
+    }
+
+    private final Mode mode;
+    private final long limit;
+    private final Path directory;
+
+    /**
+     * What was read from a response body.
+     *
+     * @param body        The text kept, or null.
+     * @param bytes       The body size in bytes.
+     * @param truncated   true if only part of the body was kept as text.
+     * @param hash        The hex SHA-256 hash, for {@link Mode#HASH_ONLY}.
+     * @param file        The file the body was written to, for {@link Mode#TO_FILE}.
+     * @param decodeNanos The time spent decoding the kept bytes into text.
+     */
+    record Captured(String body, long bytes, boolean truncated, String hash, Path file, long decodeNanos) {
+    }
+
+    private BodyCapture(Mode mode, long limit, Path directory) {
+        this.mode = mode;
+        this.limit = limit;
+        this.directory = directory;
+    }
+
+    /**
+     * @return The default policy: the whole body is kept as text.
+     */
+    public static BodyCapture full() {
+        return FULL;
+    }
+
+    /**
+     * @param limit The number of bytes kept as text.
+     * @return A policy keeping the beginning of the body and counting the rest.
+     */
+    public static BodyCapture firstBytes(long limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must not be negative");
+        }
+        return new BodyCapture(Mode.FIRST_BYTES, limit, null);
+    }
+
+    /**
+     * @return A policy counting the body bytes without keeping any.
+     */
+    public static BodyCapture discard() {
+        return DISCARD;
+    }
+
+    /**
+     * @return A policy keeping the SHA-256 hash of the body (see {@link ErbiumResponse#bodyHash()}).
+     */
+    public static BodyCapture hashOnly() {
+        return HASH_ONLY;
+    }
+
+    /**
+     * @param directory The directory the body files are created in. Files are not deleted by Erbium.
+     * @return A policy streaming each body into a new file (see {@link ErbiumResponse#bodyFile()}).
+     */
+    public static BodyCapture toFile(@NonNull Path directory) {
+        return new BodyCapture(Mode.TO_FILE, 0, directory);
+    }
+
+    /**
+     * Reads the body according to this policy and closes it.
+     */
+    Captured capture(@NonNull ResponseBody responseBody) throws IOException {
+        try (responseBody) {
+            BufferedSource source = responseBody.source();
+            switch (mode) {
+                case FULL -> {
+                    Buffer buffer = new Buffer();
+                    long bytes = source.readAll(buffer);
+                    long start = System.nanoTime();
+                    String body = decode(buffer, responseBody.contentType());
+                    return new Captured(body, bytes, false, null, null, System.nanoTime() - start);
+                }
+                case FIRST_BYTES -> {
+                    Buffer buffer = new Buffer();
+                    long kept = 0;
+                    while (kept < limit) {
+                        long read = source.read(buffer, Math.min(CHUNK_SIZE, limit - kept));
+                        if (read == -1) {
+                            break;
+                        }
+                        kept += read;
+                    }
+                    long rest = drain(source);
+                    long start = System.nanoTime();
+                    String body = decode(buffer, responseBody.contentType());
+                    return new Captured(body, kept + rest, rest > 0, null, null, System.nanoTime() - start);
+                }
+                case DISCARD -> {
+                    return new Captured(null, drain(source), false, null, null, 0);
+                }
+                case HASH_ONLY -> {
+                    HashingSink sink = HashingSink.sha256(Okio.blackhole());
+                    long bytes;
+                    try (BufferedSink buffered = Okio.buffer(sink)) {
+                        bytes = buffered.writeAll(source);
+                    }
+                    return new Captured(null, bytes, false, sink.hash().hex(), null, 0);
+                }
+                case TO_FILE -> {
+                    Files.createDirectories(directory);
+                    Path file = Files.createTempFile(directory, "erbium-response-", ".bin");
+                    long bytes;
+                    try (BufferedSink sink = Okio.buffer(Okio.sink(file))) {
+                        bytes = sink.writeAll(source);
+                    }
+                    return new Captured(null, bytes, false, null, file, 0);
+                }
+                default -> throw new IllegalStateException("Unknown body capture mode: " + mode);
+            }
+        }
+    }
+
+    /**
+     * Decodes the body as {@link ResponseBody#string()} does: a byte order mark selects the charset and is
+     * skipped, or else the charset of the Content-Type is used, UTF-8 by default.
+     */
+    private static String decode(Buffer buffer, MediaType contentType) throws IOException {
+        Charset charset = bomCharset(buffer);
+        if (charset == null) {
+            charset = contentType == null ? null : contentType.charset();
+        }
+        if (charset == null || charset.equals(StandardCharsets.UTF_8)) {
+            return buffer.readUtf8();
+        }
+        return buffer.readString(charset);
+    }
+
+    /**
+     * Skips the byte order mark at the start of the buffer, if any.
+     *
+     * @return The charset it stands for, or null without one.
+     */
+    private static Charset bomCharset(Buffer buffer) throws IOException {
+        if (buffer.rangeEquals(0, UTF_8_BOM)) {
+            buffer.skip(UTF_8_BOM.size());
+            return StandardCharsets.UTF_8;
+        }
+        // Before UTF-16LE, whose mark begins the UTF-32LE one
+        if (buffer.rangeEquals(0, UTF_32_LE_BOM)) {
+            buffer.skip(UTF_32_LE_BOM.size());
+            return Charset.forName("UTF-32LE");
+        }
+        if (buffer.rangeEquals(0, UTF_32_BE_BOM)) {
+            buffer.skip(UTF_32_BE_BOM.size());
+            return Charset.forName("UTF-32BE");
+        }
+        if (buffer.rangeEquals(0, UTF_16_BE_BOM)) {
+            buffer.skip(UTF_16_BE_BOM.size());
+            return StandardCharsets.UTF_16BE;
+        }
+        if (buffer.rangeEquals(0, UTF_16_LE_BOM)) {
+            buffer.skip(UTF_16_LE_BOM.size());
+            return StandardCharsets.UTF_16LE;
+        }
+        return null;
+    }
+
+    private static long drain(BufferedSource source) throws IOException {
+        Buffer chunk = new Buffer();
+        long total = 0;
+        long read;
+        while ((read = source.read(chunk, CHUNK_SIZE)) != -1) {
+            total += read;
+            chunk.clear();
+        }
+        return total;
+    }
+
+    @Override
+    public String toString() {
+        return switch (mode) {
+            case FIRST_BYTES -> "first " + limit + " bytes";
+            case TO_FILE -> "to file in " + directory;
+            default -> mode.name().toLowerCase().replace('_', ' ');
+        };
+    }
+}
@@ -8,6 +8,7 @@ import lombok.NonNull;
 import java.time.Duration;
 import java.util.*;
 import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 /**
  * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
@@ -365,6 +366,18 @@ public class Collection extends CollectionProperties {
         return host;
     }
 
+    /**
+     * Sets how much of the response bodies of this collection's endpoints is kept.
+     * Endpoints can override it with {@link Endpoint#setBodyCapture(BodyCapture)}.
+     *
+     * @param bodyCapture The {@link BodyCapture} policy, or null for {@link BodyCapture#full()}.
+     * @return This {@link Collection} instance.
+     */
+    public Collection setBodyCapture(BodyCapture bodyCapture) {
+        bodyCapture(bodyCapture);
+        return this;
+    }
+
     /**
      * Returns the current workspace context for this collection.
      * @return the Workspace instance this collection belongs to
@@ -373,6 +386,41 @@ public class Collection extends CollectionProperties {
         return workspace();
     }
 
+    /**
+     * Creates a copy of this collection for one thread or virtual user.
+     * <p>
+     * The fork has its own environment scope on top of this collection's environment and a fork of every
+     * endpoint (see {@link Endpoint#fork()}). Variables set by one virtual user, for instance from its
+     * responses, are not seen by the others, while variables it does not set are read through to this
+     * collection. The endpoint definitions are shared until a fork changes them.
+     * The fork belongs to the same workspace but is not registered in it.
+     *
+     * @return The forked {@link Collection}.
+     */
+    public Collection fork() {
+        Collection fork = new Collection();
+        fork.name(name());
+        fork.workspace(workspace());
+        fork.host(host());
+        fork.bodyCapture(bodyCapture());
+        fork.collectionEnvironment(collectionEnvironment().newScope(fork));
+        for (Endpoint endpoint : endpoints().values()) {
+            fork.endpoints().put(endpoint.name(), endpoint.fork(fork));
+        }
+        return fork;
+    }
+
+    /**
+     * Sends every endpoint of the collection once, running the endpoints that do not depend on each other
+     * concurrently, with the same results as sending them one at a time in order (see {@link ScenarioScheduler}).
+     *
+     * @return This {@link Collection} instance for fluent chaining.
+     */
+    public Collection sendAll() {
+        ScenarioScheduler.of(this).run();
+        return this;
+    }
+
     /**
      * Returns this collection as its own context.
      * @return this Collection instance
@@ -439,6 +487,28 @@ public class Collection extends CollectionProperties {
         return collectionEnvironment().get(varName);
     }
 
+    /**
+     * Atomically updates a collection variable, e.g. a counter shared by concurrent iterations.
+     * See {@link BaseEnvironment#compute(String, java.util.function.UnaryOperator)}.
+     *
+     * @param varName  The variable name.
+     * @param function Computes the new value from the current one (null if undefined). Must not have side effects.
+     * @return The new value.
+     */
+    public Object compute(@NonNull String varName, @NonNull UnaryOperator<Object> function) {
+        return collectionEnvironment().compute(varName, function);
+    }
+
+    /**
+     * Atomically sets a collection variable if it still has the expected value, e.g. to replace a token
+     * only once. See {@link BaseEnvironment#compareAndSet(String, Object, Object)}.
+     *
+     * @return true if the variable was updated.
+     */
+    public boolean compareAndSet(@NonNull String varName, Object expected, Object value) {
+        return collectionEnvironment().compareAndSet(varName, expected, value);
+    }
+
     /**
      * Prints the provided messages using StringUtil and returns this instance.
      *
@@ -1,5 +1,6 @@
 package br.com.erbium.core;
 
+import lombok.NonNull;
 import lombok.Setter;
 
 /**
@@ -20,13 +21,50 @@ public class CollectionEnvironment extends BaseEnvironment {
 
     Collection parentEndpointsCollection;
 
+    public CollectionEnvironment() {
+        super();
+    }
+
+    /**
+     * Creates a child scope of the given environment (see {@link #newScope(Collection)}).
+     */
+    CollectionEnvironment(@NonNull BaseEnvironment parent) {
+        super(parent);
+    }
+
+    /**
+     * A collection environment without an explicit parent reads through to the environment of the
+     * collection's workspace.
+     */
+    @Override
+    protected BaseEnvironment parent() {
+        BaseEnvironment parent = super.parent();
+        if (parent != null) {
+            return parent;
+        }
+        if (parentEndpointsCollection != null && parentEndpointsCollection.workspace() != null) {
+            return parentEndpointsCollection.workspace().workspaceEnvironment();
+        }
+        return null;
+    }
+
+    /**
+     * Creates an empty scope on top of this environment, for an iteration, a virtual user or an endpoint.
+     *
+     * @param collection The collection the scope belongs to.
+     * @return The new scope.
+     */
+    CollectionEnvironment newScope(Collection collection) {
+        CollectionEnvironment scope = new CollectionEnvironment(this);
+        scope.setParentEndpointsCollection(collection);
+        return scope;
+    }
+
     
     @Override
     public Object get(String key) {
-        key = stripBraces(key);
-        if (map.containsKey(key))
-            return map.get(key);
-        return null;
+        Object value = lookup(stripBraces(key));
+        return value == VariableTemplate.MISSING ? null : value;
     }
 
     
@@ -34,7 +72,8 @@ public class CollectionEnvironment extends BaseEnvironment {
         if (key.trim().startsWith("{{")) {
             key = stripBraces(key);
         }
-        return map.get(key);
+        Object value = lookupLocal(key);
+        return value == VariableTemplate.MISSING ? null : value;
     }
     
     private String stripBraces(String key) {
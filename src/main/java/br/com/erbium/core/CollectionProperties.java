@@ -48,6 +48,10 @@ public abstract class CollectionProperties extends CollectionDependencies {
     @Setter(AccessLevel.PROTECTED)
     @Accessors(fluent = true)
     protected String host;
+    @Getter(AccessLevel.PROTECTED)
+    @Setter(AccessLevel.PROTECTED)
+    @Accessors(fluent = true)
+    protected BodyCapture bodyCapture;
 
     DefaultTestIteratorContext defaultTestIteratorContext;
 
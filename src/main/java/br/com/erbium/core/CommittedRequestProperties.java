@@ -22,6 +22,7 @@ import javax.net.ssl.SSLContext;
 import javax.net.ssl.SSLParameters;
 import javax.net.ssl.TrustManager;
 
+import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
 
 import static br.com.erbium.core.RequestManager.buildUrlWithParams;
@@ -39,6 +40,13 @@ import static br.com.erbium.core.RequestManager.buildUrlWithParams;
  * under the ERBIUM name are protected trademarks.
  */
 
+/**
+ * The request as it is sent: a snapshot taken by {@link #commit()} and consumed by one submission script.
+ * <p>
+ * A snapshot is committed once, under the endpoint monitor, and copies everything it takes from the
+ * endpoint definition. It can therefore be used on another thread while the endpoint is committed and
+ * submitted again.
+ */
 public class CommittedRequestProperties {
 
     @Getter(AccessLevel.PUBLIC)
@@ -49,10 +57,9 @@ public class CommittedRequestProperties {
     @Setter(AccessLevel.PACKAGE)
     @Accessors(fluent = true)
     private Headers committedHeaders;
-    @Getter(AccessLevel.PUBLIC)
-    @Setter(AccessLevel.PACKAGE)
-    @Accessors(fluent = true)
     private String committedBody;
+    // The JSON body as it is sent; committedBody() decodes it on demand
+    private byte[] committedBodyBytes;
     @Getter(AccessLevel.PUBLIC)
     @Setter(AccessLevel.PACKAGE)
     @Accessors(fluent = true)
@@ -83,68 +90,132 @@ public class CommittedRequestProperties {
     @Setter(AccessLevel.PACKAGE)
     @Accessors(fluent = true)
     private Endpoint endpoint;
+    @Getter(AccessLevel.PUBLIC)
+    @Setter(AccessLevel.PACKAGE)
+    @Accessors(fluent = true)
+    private BodyCapture committedBodyCapture;
+
 
+    private boolean committed = false;
+
+    // The endpoint whose definition is committed; differs from the endpoint for forks sharing a definition
+    private final Endpoint definition;
 
     public CommittedRequestProperties(Endpoint endpoint) {
+        this(endpoint, endpoint);
+    }
+
+    CommittedRequestProperties(Endpoint definition, Endpoint endpoint) {
+        this.definition = definition;
         this.endpoint = endpoint;
     }
 
     
     public void runHeadersTriggers() {
-        endpoint().headersManager().runHeaderTriggers();
-        committedHeaders(endpoint().headersManager().committedHeaders());
+        definition.headersManager().runHeaderTriggers();
+        committedHeaders(definition.headersManager().committedHeaders());
     }
 
     
     public void commitSslParameters() {
-        if (endpoint().sslSecurity() != null) {
-            committedSslContext = endpoint().sslSecurity().getSslContext();
-            committedSslParameters = endpoint().sslSecurity().sslParameters;
-            trustManager = endpoint().sslSecurity().trustManager();
+        if (definition.sslSecurity() != null) {
+            committedSslContext = definition.sslSecurity().getSslContext();
+            committedSslParameters = definition.sslSecurity().sslParameters;
+            trustManager = definition.sslSecurity().trustManager();
         }
     }
 
     
     public String runRequestTriggers() {
-        if (committedBody != null) {
-            return committedBody;
+        commitBody();
+        return committedBody();
+    }
+
+    /**
+     * Runs the request triggers and commits the body, keeping a JSON body as the UTF-8 bytes it is sent as
+     * (see {@link #committedBodyBytes()}).
+     */
+    void commitBody() {
+        if (committedBody != null || committedBodyBytes != null) {
+            return;
         }
 
         // *** DECIDIR DE SE PASSA CADA FORMATO DE MODE/REQUEST TYPE OU SE TRANSFORMA TUDO EM BODY
 
-        endpoint().runRequestTriggers();
-        requestType(endpoint().requestManager().requestType());
+        definition.runRequestTriggers();
+        requestType(definition.requestManager().requestType());
 
         if (requestType() == RequestType.JSON || requestType() == RequestType.XML) {
-            committedBody = endpoint().requestManager().jsonRequest().getBody();
+            committedBodyBytes = definition.requestManager().jsonRequest().getBodyBytes(environment());
         } else if (requestType() == RequestType.URL_ENCODED) {
-            committedUrlEncodedBody = endpoint().requestManager().urlEncoded().formData;
+            committedUrlEncodedBody = new LinkedHashMap<>(definition.requestManager().urlEncoded().formData);
         } else {
             committedBody = "";
         }
+    }
 
+    /**
+     * @return The committed body, as compact JSON for JSON requests.
+     */
+    public String committedBody() {
+        if (committedBody == null && committedBodyBytes != null) {
+            committedBody = new String(committedBodyBytes, StandardCharsets.UTF_8);
+        }
         return committedBody;
     }
 
+    void committedBody(String committedBody) {
+        this.committedBody = committedBody;
+        this.committedBodyBytes = null;
+    }
+
+    /**
+     * @return The committed body encoded as UTF-8, as it is written to the wire. The array may be shared
+     * with later commits of an unchanged body, so it must not be modified.
+     */
+    public byte[] committedBodyBytes() {
+        if (committedBodyBytes == null && committedBody != null) {
+            committedBodyBytes = committedBody.getBytes(StandardCharsets.UTF_8);
+        }
+        return committedBodyBytes;
+    }
+
     
     public String commitUrl() {
         if (committedUrl != null) {
             return committedUrl;
         }
         committedUrl(
-                endpoint().parentCollection().collectionEnvironment().replaceVars(
-                        buildUrlWithParams(endpoint().requestManager().url(), endpoint().requestManager().params))
+                environment().replaceVars(
+                        buildUrlWithParams(definition.requestManager().url(), definition.requestManager().params))
         );
         return committedUrl;
     }
 
+    private CollectionEnvironment environment() {
+        return endpoint().environment();
+    }
+
     
     public void commit() {
-        method(endpoint().requestManager().method());
-        commitUrl();
-        runHeadersTriggers();
-        runRequestTriggers();
+        if (committed) {
+            throw new IllegalStateException("These request properties have already been committed.");
+        }
+        committed = true;
+        method(definition.requestManager().method());
+
+        // Only the variable slots of the compiled plan are bound per commit
+        ExecutionPlan plan = definition.requestManager().executionPlan();
+        committedUrl(plan.renderUrl(environment()));
+        if (plan.hasHeaders()) {
+            committedHeaders(definition.headersManager().setCommittedHeaders(plan.renderHeaders(environment())));
+        } else {
+            runHeadersTriggers();
+        }
+
+        commitBody();
         commitSslParameters();
+        committedBodyCapture(endpoint().effectiveBodyCapture());
     }
 
 
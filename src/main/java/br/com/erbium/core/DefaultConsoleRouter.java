@@ -2,6 +2,8 @@ package br.com.erbium.core;
 
 import lombok.Setter;
 
+import java.util.List;
+
 import static br.com.erbium.core.ConsoleColors.*;
 
 /**
@@ -55,6 +57,33 @@ public class DefaultConsoleRouter implements ReportRouter {
      */
     @Override
     public void route(LogType level, LogItem item, String message) { // TODO: Rename LogItem parameter to item
+        System.out.print(format(level, item, message));
+    }
+
+    /**
+     * Routes a batch of messages with a single write to the console.
+     *
+     * @param events The messages to route.
+     */
+    @Override
+    public void route(List<LogEvent> events) {
+        StringBuilder builder = new StringBuilder();
+        for (LogEvent event : events) {
+            builder.append(format(event.level(), event.item(), event.message()));
+        }
+        System.out.print(builder);
+        System.out.flush();
+    }
+
+    /**
+     * Formats a message exactly as {@link #route(LogType, LogItem, String)} prints it.
+     *
+     * @param level   The severity or type of the log entry.
+     * @param item    The specific category of the message.
+     * @param message The raw string message.
+     * @return The colored message, followed by a space and the color reset sequence.
+     */
+    public String format(LogType level, LogItem item, String message) {
         if (useColors) {
             message = switch (item) {
                 case REQUEST_METHOD -> switch (message.trim()) {
@@ -97,13 +126,7 @@ public class DefaultConsoleRouter implements ReportRouter {
             }
         }
 
-        if (!level.equals(LogType.UDEF) && !item.equals(LogItem.MESSAGE_COMPLEMENT)) {
-            System.out.print(message + " ");
-        } else {
-            System.out.print(message + " ");
-        }
-
-        System.out.print(ConsoleColors.RESET);
+        return message + " " + ConsoleColors.RESET;
     }
 
     /**
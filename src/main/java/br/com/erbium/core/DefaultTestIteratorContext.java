@@ -44,6 +44,7 @@ public class DefaultTestIteratorContext {
     @Getter
     private final int iteration;
     private final Map<String, Object> data = new HashMap<>();
+    private final Map<String, Collection> collections = new HashMap<>();
 
     Workspace workspace;
 
@@ -78,11 +79,27 @@ public class DefaultTestIteratorContext {
         return data.containsKey(key);
     }
 
+    /**
+     * Returns this iteration's fork of a workspace collection (see {@link Collection#fork()}), created on
+     * first use. Variables the iteration sets, directly or from responses, stay in the iteration scope and
+     * are discarded with the context, so concurrent iterations do not see each other's values.
+     *
+     * @param name the collection name
+     * @return the iteration-scoped Collection
+     */
+    public Collection collection(String name) {
+        if (workspace == null) {
+            throw new IllegalStateException("This iteration context has no workspace.");
+        }
+        return collections.computeIfAbsent(name, key -> workspace.getCollection(key).fork());
+    }
+
     /**
      * Clears the context and destroys the workspace reference.
      */
     public void clear() {
         ErbiumUtils.destroy();
+        collections.clear();
         workspace(null);
     }
 
@@ -9,10 +9,15 @@ import br.com.erbium.utils.StringUtil;
 import br.com.erbium.core.interfaces.IJsonRequest;
 import br.com.erbium.core.interfaces.ISubmission;
 import br.com.erbium.core.interfaces.ResponseManagerOperator;
+import br.com.erbium.core.scripts.triggers.builtin.BearerTokenHeadersTrigger;
 import lombok.NonNull;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Modifier;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
@@ -177,7 +182,7 @@ public class Endpoint extends EndpointProperties implements ISubmission {
      * @return The HTTP method as a String.
      */
     public String getMethod() {
-        return requestManager().getMethod();
+        return sharesDefinition() ? forkSource.getMethod() : requestManager().getMethod();
     }
 
     /**
@@ -186,7 +191,7 @@ public class Endpoint extends EndpointProperties implements ISubmission {
      * @return The {@link RequestType}.
      */
     public RequestType getRequestType() {
-        return requestManager().requestType();
+        return sharesDefinition() ? forkSource.getRequestType() : requestManager().requestType();
     }
 
 
@@ -200,7 +205,7 @@ public class Endpoint extends EndpointProperties implements ISubmission {
      * @return The {@link ResponseManager} handling the response.
      */
     public Collection submit() {
-        return getRequestManager().submit();
+        return submitter().send(this);
     }
 
     /**
@@ -209,7 +214,36 @@ public class Endpoint extends EndpointProperties implements ISubmission {
      * @return The {@link ResponseManager} handling the response.
      */
     public Collection send() {
-        return getRequestManager().send();
+        return submitter().send(this);
+    }
+
+    /**
+     * Submits the request defined by this endpoint without blocking the calling thread.
+     *
+     * @return A future completed with the {@link ErbiumResponse} once the response triggers have run.
+     */
+    public CompletableFuture<ErbiumResponse> submitAsync() {
+        return submitter().sendAsync(this);
+    }
+
+    /**
+     * Sends the request defined by this endpoint without blocking the calling thread.
+     *
+     * @return A future completed with the {@link ErbiumResponse} once the response triggers have run.
+     */
+    public CompletableFuture<ErbiumResponse> sendAsync() {
+        return submitter().sendAsync(this);
+    }
+
+    /**
+     * Sends the request with the given method. Setting a missing method changes the definition,
+     * so a fork still sharing its definition gets its own copy first.
+     */
+    private Collection send(Method method) {
+        RequestManager submitter = sharesDefinition() && forkSource.getMethod() == null
+                ? getRequestManager()
+                : submitter();
+        return submitter.send(this, method);
     }
 
     /**
@@ -218,7 +252,7 @@ public class Endpoint extends EndpointProperties implements ISubmission {
      * @return The {@link ResponseManager} handling the response.
      */
     public Collection post() {
-        return getRequestManager().post();
+        return send(Method.POST);
     }
 
     /**
@@ -227,7 +261,7 @@ public class Endpoint extends EndpointProperties implements ISubmission {
      * @return The {@link ResponseManager} handling the response.
      */
     public Collection get() {
-        return getRequestManager().get();
+        return send(Method.GET);
     }
 
     /**
@@ -236,7 +270,7 @@ public class Endpoint extends EndpointProperties implements ISubmission {
      * @return The {@link ResponseManager} handling the response.
      */
     public Collection put() {
-        return getRequestManager().put();
+        return send(Method.PUT);
     }
 
     /**
@@ -245,7 +279,7 @@ public class Endpoint extends EndpointProperties implements ISubmission {
      * @return The {@link ResponseManager} handling the response.
      */
     public Collection options() {
-        return getRequestManager().options();
+        return send(Method.OPTIONS);
     }
 
     /**
@@ -254,7 +288,7 @@ public class Endpoint extends EndpointProperties implements ISubmission {
      * @return The {@link ResponseManager} handling the response.
      */
     public Collection patch() {
-        return getRequestManager().patch();
+        return send(Method.PATCH);
     }
 
     /**
@@ -263,7 +297,7 @@ public class Endpoint extends EndpointProperties implements ISubmission {
      * @return The {@link ResponseManager} handling the response.
      */
     public Collection delete() {
-        return getRequestManager().delete();
+        return send(Method.DELETE);
     }
 
     /**
@@ -272,7 +306,7 @@ public class Endpoint extends EndpointProperties implements ISubmission {
      * @return The {@link ResponseManager} handling the response.
      */
     public Collection head() {
-        return getRequestManager().head();
+        return send(Method.HEAD);
     }
 
     /**
@@ -284,6 +318,71 @@ public class Endpoint extends EndpointProperties implements ISubmission {
         return requestManager();
     }
 
+    /**
+     * Returns the request manager that submits this endpoint: the one of the source endpoint while this
+     * fork still shares its definition. Headers triggers render and commit the headers of the endpoint they
+     * are attached to, so a fork sharing a definition with queued headers triggers gets its own copy first.
+     */
+    private RequestManager submitter() {
+        if (sharesDefinition() && forkSource.headersManager().queuedHeaderTriggers().isEmpty()) {
+            return forkSource.getRequestManager();
+        }
+        return getRequestManager();
+    }
+
+    /**
+     * Creates a lightweight copy of this endpoint in the same collection, for one thread or virtual user.
+     * <p>
+     * The fork shares this endpoint's definition (method, URL, parameters, headers, body and triggers)
+     * and only allocates its own response history, so forking is cheap even for thousands of instances.
+     * Submissions of the fork commit the shared definition against the fork's collection environment and
+     * store the response in the fork. The first change to the fork's definition copies it into the fork
+     * (copy-on-write), leaving this endpoint untouched. So does the first submission when headers triggers
+     * are queued, so that they run against the fork's variables.
+     * <p>
+     * The fork gets its own copies of the scripts and triggers, made by {@link Script#copy()}: scripts queued
+     * as instances rather than by class must override it, or the copy fails.
+     * <p>
+     * The fork is not added to the collection. To give each virtual user its own variables as well,
+     * fork the collection with {@link Collection#fork()}.
+     *
+     * @return The forked {@link Endpoint}.
+     */
+    public Endpoint fork() {
+        return fork(parentCollection());
+    }
+
+    Endpoint fork(@NonNull Collection collection) {
+        Endpoint source = sharesDefinition() ? forkSource : this;
+        Endpoint fork = new Endpoint();
+        fork.name(name());
+        fork.parentCollection(collection);
+        fork.forkSource = source;
+        fork.sslSecurity(sslSecurity());
+        fork.bodyCapture(bodyCapture());
+        if (endpointEnvironment != null) {
+            // Endpoint variables are few: the fork gets a copy on top of its own collection scope
+            fork.endpointEnvironment = collection.collectionEnvironment().newScope(collection);
+            fork.endpointEnvironment.copyLocalsFrom(endpointEnvironment);
+        }
+        fork.responseManager(responseManager().forkFor(fork));
+        return fork;
+    }
+
+    @Override
+    void materializeFork() {
+        // The source definition must not change while it is copied
+        synchronized (forkSource) {
+            if (requestManager != null) {
+                return;
+            }
+            RequestManager forkedRequestManager = forkSource.requestManager().forkFor(this);
+            HeadersManager forkedHeadersManager = forkSource.headersManager().forkFor(this);
+            headersManager(forkedHeadersManager);
+            requestManager(forkedRequestManager);
+        }
+    }
+
     /**
      * Sets URL parameters for the request.
      *
@@ -339,13 +438,36 @@ public class Endpoint extends EndpointProperties implements ISubmission {
     }
 
     /**
-     * Retrieves a variable from the parent collection's environment.
+     * Retrieves a variable from this endpoint's scope, reading through to the parent collection's environment.
      *
      * @param varName The name of the variable to retrieve.
      * @return The value of the variable.
      */
     public Object get(@NonNull String varName) {
-        return parentCollection().collectionEnvironment().get(varName);
+        return environment().get(varName);
+    }
+
+    /**
+     * Sets a variable visible to this endpoint only, shadowing the collection variable of the same name.
+     *
+     * @param varName The name of the variable to set.
+     * @param value   The value to set for the variable.
+     * @return This {@link Endpoint} instance for fluent chaining.
+     */
+    public Endpoint setLocal(@NonNull String varName, Object value) {
+        if (endpointEnvironment == null) {
+            endpointEnvironment = parentCollection().collectionEnvironment().newScope(parentCollection());
+        }
+        endpointEnvironment.set(varName, value);
+        return this;
+    }
+
+    /**
+     * Returns the environment requests of this endpoint are resolved against: the endpoint scope, if any
+     * variable was set with {@link #setLocal(String, Object)}, or else the collection environment.
+     */
+    CollectionEnvironment environment() {
+        return endpointEnvironment != null ? endpointEnvironment : parentCollection().collectionEnvironment();
     }
 
     /**
@@ -558,19 +680,47 @@ public class Endpoint extends EndpointProperties implements ISubmission {
 
 
     public Endpoint removeSubmissionScript() {
-        requestManager().erbiumSubmissionScript(null);
+        requestManager().submissionScriptFactory(null);
         return this;
     }
 
 
+    /**
+     * Sets the submission script class. A new instance is created for every submission, so concurrent
+     * submissions never share the committed properties or the response of a script.
+     *
+     * @param scriptClass The script class, with an accessible no-arg constructor.
+     * @return This {@link Endpoint} instance for fluent chaining.
+     */
     public Endpoint setSubmissionScript(@NonNull Class<? extends ErbiumSubmissionScript> scriptClass) {
-        ErbiumSubmissionScript script = null;
+        Constructor<? extends ErbiumSubmissionScript> constructor;
         try {
-            script = scriptClass.getDeclaredConstructor().newInstance();
-        } catch (Exception e) {
+            constructor = scriptClass.getDeclaredConstructor();
+        } catch (NoSuchMethodException e) {
             throw new RuntimeException("Failed to instantiate the submission script from class: " + scriptClass.getName(), e);
         }
-        requestManager().erbiumSubmissionScript(script);
+        // Checked without creating a script, as its constructor may have side effects
+        if (Modifier.isAbstract(scriptClass.getModifiers()) || !constructor.canAccess(null)) {
+            throw new RuntimeException("Failed to instantiate the submission script from class: " + scriptClass.getName()
+                    + ". It must be concrete, with an accessible no-arg constructor.");
+        }
+        return setSubmissionScript(() -> {
+            try {
+                return constructor.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new RuntimeException("Failed to instantiate the submission script from class: " + scriptClass.getName(), e);
+            }
+        });
+    }
+
+    /**
+     * Sets the factory of the submission scripts, called once per submission.
+     *
+     * @param scriptFactory Returns a new script on every call.
+     * @return This {@link Endpoint} instance for fluent chaining.
+     */
+    public Endpoint setSubmissionScript(@NonNull Supplier<? extends ErbiumSubmissionScript> scriptFactory) {
+        requestManager().submissionScriptFactory(scriptFactory);
         return this;
     }
 
@@ -633,6 +783,18 @@ public class Endpoint extends EndpointProperties implements ISubmission {
         return this;
     }
 
+    /**
+     * Sends a token from the workspace {@link TokenManager} in the Authorization header, as a headers trigger
+     * named {@code bearer-token} (see {@link BearerTokenHeadersTrigger}).
+     *
+     * @param credentials Identifies the credential set; endpoints using the same credentials share the token.
+     * @param source      Fetches a token for these credentials, e.g. {@link TokenManager#fromEndpoint}.
+     * @return This {@link Endpoint} instance for fluent chaining.
+     */
+    public Endpoint queueBearerToken(@NonNull Object credentials, @NonNull TokenManager.TokenSource source) {
+        return queueHeaderTrigger("bearer-token", new BearerTokenHeadersTrigger(credentials, source));
+    }
+
     /**
      * Removes a header trigger by its name.
      *
@@ -982,5 +1144,29 @@ public class Endpoint extends EndpointProperties implements ISubmission {
         return this;
     }
 
+    /**
+     * Sets how much of the response bodies of this endpoint is kept, overriding the collection's policy.
+     *
+     * @param bodyCapture The {@link BodyCapture} policy, or null to use the collection's.
+     * @return This {@link Endpoint} instance for fluent chaining.
+     */
+    public Endpoint setBodyCapture(BodyCapture bodyCapture) {
+        bodyCapture(bodyCapture);
+        return this;
+    }
+
+    /**
+     * @return The body capture policy of this endpoint, else of its collection, else {@link BodyCapture#full()}.
+     */
+    BodyCapture effectiveBodyCapture() {
+        if (bodyCapture() != null) {
+            return bodyCapture();
+        }
+        if (parentCollection() != null && parentCollection().bodyCapture() != null) {
+            return parentCollection().bodyCapture();
+        }
+        return BodyCapture.full();
+    }
+
 
 }
\ No newline at end of file
@@ -40,14 +40,22 @@ public abstract class EndpointDependencies extends EndpointIdentifiable {
 
     @Getter(AccessLevel.PROTECTED) @Setter(AccessLevel.PROTECTED) @Accessors(fluent = true)
     Collection parentCollection;
-    @Getter(AccessLevel.PROTECTED) @Setter(AccessLevel.PACKAGE) @Accessors(fluent = true)
+    @Setter(AccessLevel.PACKAGE) @Accessors(fluent = true)
     RequestManager requestManager;
     @Getter(AccessLevel.PROTECTED) @Setter(AccessLevel.PACKAGE) @Accessors(fluent = true)
     ResponseManager responseManager;
-    @Getter(AccessLevel.PROTECTED) @Setter(AccessLevel.PACKAGE) @Accessors(fluent = true)
+    @Setter(AccessLevel.PACKAGE) @Accessors(fluent = true)
     HeadersManager headersManager;
+
+    // The endpoint whose definition a fork shares until the fork needs its own copy
+    Endpoint forkSource;
+    // Endpoint-level variables, created by the first Endpoint.setLocal(...)
+    CollectionEnvironment endpointEnvironment;
     @Getter(AccessLevel.PROTECTED) @Setter(AccessLevel.PROTECTED) @Accessors(fluent = true)
     SslSecurity sslSecurity;
+    // null to use the collection's policy
+    @Getter(AccessLevel.PROTECTED) @Setter(AccessLevel.PROTECTED) @Accessors(fluent = true)
+    BodyCapture bodyCapture;
 
     @Getter(AccessLevel.PROTECTED) @Accessors(fluent = true)
     final Map<String, EndpointScript>  queuedEndpointScripts = new LinkedHashMap<>();
@@ -61,6 +69,38 @@ public abstract class EndpointDependencies extends EndpointIdentifiable {
         super(name);
     }
 
+    /**
+     * Returns the request manager. A fork that still shares its definition gets its own copy first.
+     */
+    protected RequestManager requestManager() {
+        if (requestManager == null && forkSource != null) {
+            materializeFork();
+        }
+        return requestManager;
+    }
+
+    /**
+     * Returns the headers manager. A fork that still shares its definition gets its own copy first.
+     */
+    protected HeadersManager headersManager() {
+        if (headersManager == null && forkSource != null) {
+            materializeFork();
+        }
+        return headersManager;
+    }
+
+    /**
+     * @return true if this endpoint is a fork that still uses the definition of its source.
+     */
+    boolean sharesDefinition() {
+        return forkSource != null && requestManager == null;
+    }
+
+    /**
+     * Copies the shared definition into this fork.
+     */
+    abstract void materializeFork();
+
     protected void requireCollectionDependency() {
         if (parentCollection() == null)
             throw new IllegalStateException("This endpoint is not assigned to a endpointsCollection. Please assign it to a endpointsCollection before proceeding.");
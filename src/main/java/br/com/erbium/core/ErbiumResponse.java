@@ -1,12 +1,17 @@
 package br.com.erbium.core;
 
+import br.com.erbium.utils.JsonPaths;
+import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.NonNull;
 import lombok.experimental.Accessors;
 import okhttp3.*;
 import okhttp3.Headers;
 
 import java.io.IOException;
+import java.nio.file.Path;
 
 /**
  * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
@@ -25,16 +30,38 @@ import java.io.IOException;
 public class ErbiumResponse {
     private int code;
     private String message;
-    private ResponseBody responseBody;
-    private String body;
+    private volatile ResponseBody responseBody;
+    private volatile String body;
+    // what the body capture policy kept besides the text (see BodyCapture)
+    private long bodySize;
+    private boolean bodyTruncated;
+    private String bodyHash;
+    private Path bodyFile;
+    private long bodyDecodeNanos;
     private Headers headers;
     private Protocol protocol;
-    private Request request;
-    private Handshake handshake;
+    private volatile Request request;
+    private volatile Handshake handshake;
     private Throwable throwable;
     private long time;
+    private RequestTimings timings;
+    // parsed lazily, at most once, and shared by every jsonPath/rset/qrset extraction
+    private volatile DocumentContext document;
+    // set once the body has been evicted to stay within the workspace response retention budget
+    private volatile boolean evicted;
+    @Getter(AccessLevel.NONE)
+    private volatile ResponseArchive archive;
+    @Getter(AccessLevel.NONE)
+    private int archiveIndex;
 
     public ErbiumResponse(Response response, Throwable throwable, long time) throws IOException {
+        this(response, throwable, time, BodyCapture.full());
+    }
+
+    /**
+     * @param capture How much of the body is kept.
+     */
+    public ErbiumResponse(Response response, Throwable throwable, long time, @NonNull BodyCapture capture) throws IOException {
         if (response != null) {
             this.code = response.code();
             this.message = response.message();
@@ -45,7 +72,15 @@ public class ErbiumResponse {
 
             // MUST be read only once
             this.responseBody = response.body();
-            this.body = responseBody.string();
+            if (responseBody != null) {
+                BodyCapture.Captured captured = capture.capture(responseBody);
+                this.body = captured.body();
+                this.bodySize = captured.bytes();
+                this.bodyTruncated = captured.truncated();
+                this.bodyHash = captured.hash();
+                this.bodyFile = captured.file();
+                this.bodyDecodeNanos = captured.decodeNanos();
+            }
         }
 
         this.time = time;
@@ -60,8 +95,105 @@ public class ErbiumResponse {
         this.time = time;
     }
 
+    public void setTimings(RequestTimings timings) {
+        this.timings = timings;
+    }
+
+    /**
+     * Returns the response body. The body of an evicted response is read back from the spill archive,
+     * or is null if it was discarded (see {@link ResponseRetention}).
+     *
+     * @return The response body.
+     */
+    public String body() {
+        String result = body;
+        if (result == null && archive != null) {
+            return archive.read(archiveIndex);
+        }
+        return result;
+    }
+
+    /**
+     * @return The size in bytes of the body kept in memory, as accounted for by the {@link ResponseRetention}
+     * budget: the body size, or the UTF-8 size of the kept text when it was truncated.
+     */
+    long retainedSize() {
+        String result = body;
+        if (result == null) {
+            return 0;
+        }
+        return bodyTruncated ? utf8Length(result) : bodySize;
+    }
+
+    private static long utf8Length(String text) {
+        long length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length() && Character.isLowSurrogate(text.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Releases the body, the parsed document and the OkHttp objects, archiving the body first if an
+     * archive is given. Status, headers and timings are kept.
+     */
+    synchronized void evict(ResponseArchive archive) {
+        if (evicted) {
+            return;
+        }
+        if (archive != null && body != null) {
+            archiveIndex = archive.write(body);
+            this.archive = archive;
+        }
+        evicted = true;
+        body = null;
+        document = null;
+        responseBody = null;
+        request = null;
+        handshake = null;
+    }
+
+    /**
+     * Returns the parsed JSON document of the response body. The body is parsed on first access only.
+     *
+     * @return The cached {@link DocumentContext}.
+     */
+    public DocumentContext document() {
+        DocumentContext result = document;
+        if (result == null) {
+            synchronized (this) {
+                result = document;
+                if (result == null) {
+                    result = JsonPath.parse(body());
+                    // an evicted body is parsed again on each access rather than kept in memory
+                    if (!evicted) {
+                        document = result;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return true if the body has already been parsed into its {@link #document()}.
+     */
+    boolean isParsed() {
+        return document != null;
+    }
+
     public <T> T jsonPath(String path) {
-        return JsonPath.parse(body).read(path);
+        return JsonPaths.read(document(), path);
     }
 
     @Override
@@ -75,6 +207,6 @@ public class ErbiumResponse {
                 "Message: " + message + "\n" +
                 "Protocol: " + protocol + "\n" +
                 "Headers: " + headers + "\n" +
-                "Body: " + body;
+                "Body: " + body();
     }
 }
@@ -0,0 +1,198 @@
+package br.com.erbium.core;
+
+import br.com.erbium.core.enums.RequestType;
+import br.com.erbium.core.scripts.triggers.builtin.DefaultHeadersTrigger;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+
+/**
+ * The compiled form of an endpoint definition, reused across submissions.
+ * <p>
+ * The URL (with its query parameters already encoded) and the headers merged by the default headers
+ * trigger are parsed once into {@link VariableTemplate}s. Each commit only binds the environment
+ * variables again. The JSON body keeps its own compact serialized template (see {@link JsonRequest#getBodyBytes(BaseEnvironment)}).
+ * <p>
+ * A plan records the definition it was compiled from and {@link #matches(RequestManager)} compares it
+ * with the current one, so any change to the method, request type, URL, parameters or headers
+ * (see {@link Headers#generation()}) makes the request manager compile a new plan. When custom headers triggers are queued the headers
+ * are not planned: the triggers run on every commit, as they may depend on anything.
+ * <p>
+ * When no planned header uses a variable, the OkHttp headers are also built once and shared by every
+ * commit of the plan (see {@link Headers#toOkHttpHeaders()}).
+ */
+final class ExecutionPlan {
+
+    private final String method;
+    private final RequestType requestType;
+    private final String url;
+    private final List<Map.Entry<String, String>> params;
+    private final VariableTemplate urlTemplate;
+
+    // null when headers triggers are queued
+    private final List<Header> headers;
+    private final List<HeaderSlot> headerSlots;
+    // The endpoint headers the plan was compiled from
+    private final Headers userHeaders;
+    private final long userHeadersGeneration;
+    // null unless the planned headers are constant
+    private final okhttp3.Headers okHttpHeaders;
+
+    private record HeaderSlot(VariableTemplate key, VariableTemplate value, Object rawValue, String description, String type) {
+    }
+
+    private ExecutionPlan(RequestManager requestManager, List<Header> headers) {
+        this.method = requestManager.method();
+        this.requestType = requestManager.requestType();
+        this.url = requestManager.url();
+        this.params = copyOf(requestManager.params);
+        this.urlTemplate = VariableTemplate.compile(RequestManager.buildUrlWithParams(url, requestManager.params));
+        this.headers = headers;
+        this.userHeaders = requestManager.parentEndpoint().headersManager().headers();
+        this.userHeadersGeneration = userHeaders.generation();
+        this.headerSlots = headers == null ? null : compileHeaders(headers);
+        this.okHttpHeaders = headerSlots == null ? null : constantHeaders(headerSlots);
+    }
+
+    /**
+     * Compiles the current definition of the request manager's endpoint.
+     * Unless headers triggers are queued, the default headers are merged with the endpoint headers here,
+     * exactly as a commit would do.
+     */
+    static ExecutionPlan compile(RequestManager requestManager) {
+        HeadersManager headersManager = requestManager.parentEndpoint().headersManager();
+        List<Header> headers = null;
+        if (headersManager.queuedHeaderTriggers().isEmpty()) {
+            DefaultHeadersTrigger trigger = headersManager.defaultHeadersTrigger();
+            trigger.attach(headersManager, requestManager.parentEndpoint());
+            headers = snapshotOf(trigger.getMergedHeaders());
+        }
+        return new ExecutionPlan(requestManager, headers);
+    }
+
+    /**
+     * @return true if the endpoint definition is still the one this plan was compiled from.
+     */
+    boolean matches(RequestManager requestManager) {
+        HeadersManager headersManager = requestManager.parentEndpoint().headersManager();
+        boolean planHeaders = headersManager.queuedHeaderTriggers().isEmpty();
+        return Objects.equals(method, requestManager.method())
+                && requestType == requestManager.requestType()
+                && Objects.equals(url, requestManager.url())
+                && sameEntries(params, requestManager.params)
+                && planHeaders == (headers != null)
+                && (!planHeaders || sameHeaders(headersManager.headers()));
+    }
+
+    boolean hasHeaders() {
+        return headerSlots != null;
+    }
+
+    String renderUrl(BaseEnvironment environment) {
+        return environment.render(urlTemplate);
+    }
+
+    /**
+     * Renders the planned headers, like {@link HeadersManager#getLiteralHeaders()} does.
+     */
+    Headers renderHeaders(BaseEnvironment environment) {
+        Headers literalHeaders = new Headers();
+        for (HeaderSlot slot : headerSlots) {
+            String key = environment.render(slot.key());
+            if (key.isEmpty()) {
+                continue;
+            }
+            Object value = slot.value() == null ? slot.rawValue() : environment.render(slot.value());
+            literalHeaders.addHeader(new Header(key, value, slot.description(), slot.type()));
+        }
+        if (okHttpHeaders != null) {
+            literalHeaders.okHttpHeaders(okHttpHeaders);
+        }
+        return literalHeaders;
+    }
+
+    /**
+     * @return The OkHttp form of the headers if none of them uses a variable, otherwise null.
+     */
+    private static okhttp3.Headers constantHeaders(List<HeaderSlot> slots) {
+        Headers literalHeaders = new Headers();
+        for (HeaderSlot slot : slots) {
+            if (slot.key().hasVariables() || slot.value() != null && slot.value().hasVariables()) {
+                return null;
+            }
+            String key = slot.key().source();
+            if (key.isEmpty()) {
+                continue;
+            }
+            Object value = slot.value() == null ? slot.rawValue() : slot.value().source();
+            literalHeaders.addHeader(new Header(key, value, slot.description(), slot.type()));
+        }
+        return literalHeaders.toOkHttpHeaders();
+    }
+
+    private static List<HeaderSlot> compileHeaders(List<Header> headers) {
+        List<HeaderSlot> slots = new ArrayList<>(headers.size());
+        for (Header header : headers) {
+            String type = header.getType();
+            boolean text = type == null || type.equals("text") || type.equals("default") || type.equals("json") || type.isEmpty();
+            Object value = header.getValue();
+            VariableTemplate valueTemplate = text ? VariableTemplate.compile(value == null ? "" : value.toString()) : null;
+            slots.add(new HeaderSlot(VariableTemplate.compile(header.getKey()), valueTemplate, value, header.getDescription(), type));
+        }
+        return slots;
+    }
+
+    /**
+     * The endpoint headers are no longer rewritten by the default headers trigger, so they are compared
+     * by generation rather than by content.
+     */
+    private boolean sameHeaders(Headers current) {
+        return current == userHeaders && current.generation() == userHeadersGeneration;
+    }
+
+    private static List<Header> snapshotOf(Headers headers) {
+        List<Header> snapshot = new ArrayList<>(headers.headers().size());
+        for (Header header : headers.headers()) {
+            snapshot.add(new Header(header.getKey(), header.getValue(), header.getDescription(), header.getType()));
+        }
+        return snapshot;
+    }
+
+    private static List<Map.Entry<String, String>> copyOf(Map<String, String> params) {
+        List<Map.Entry<String, String>> copy = new ArrayList<>(params.size());
+        for (Map.Entry<String, String> entry : params.entrySet()) {
+            copy.add(Map.entry(entry.getKey(), entry.getValue()));
+        }
+        return copy;
+    }
+
+    // Parameter order matters, as it is part of the URL
+    private static boolean sameEntries(List<Map.Entry<String, String>> entries, Map<String, String> params) {
+        if (entries.size() != params.size()) {
+            return false;
+        }
+        Iterator<Map.Entry<String, String>> current = params.entrySet().iterator();
+        for (Map.Entry<String, String> entry : entries) {
+            Map.Entry<String, String> other = current.next();
+            if (!entry.getKey().equals(other.getKey()) || !entry.getValue().equals(other.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,43 @@
+package br.com.erbium.core;
+
+import br.com.erbium.core.base.scripts.Script;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+
+/**
+ * Copies scripts and triggers for a forked endpoint (see {@link Endpoint#fork()}).
+ * <p>
+ * Scripts are attached to the manager that runs them, so a fork needs its own instances, made by
+ * {@link Script#copy()}. A script that cannot be copied makes the fork fail: sharing the original instance
+ * would let the fork change the source endpoint.
+ */
+final class ForkedScripts {
+
+    private ForkedScripts() {
+    }
+
+    /**
+     * @return A new, unattached copy of the script.
+     * @throws UnsupportedOperationException if the script cannot be copied.
+     */
+    static <T extends Script> T copyOf(T script) {
+        Script copy = script.copy();
+        if (copy == null || copy == script || copy.getClass() != script.getClass()) {
+            throw new IllegalStateException("Script " + script.getClass().getName()
+                    + " must return a new instance of its own class from copy().");
+        }
+        @SuppressWarnings("unchecked")
+        T typed = (T) copy;
+        return typed;
+    }
+}
@@ -13,11 +13,17 @@
  */
 package br.com.erbium.core;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 import lombok.experimental.Accessors;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
  * Description: [Brief description of what this class does]
@@ -31,14 +37,73 @@ import lombok.experimental.Accessors;
  * under the ERBIUM name are protected trademarks.
  */
 
-@AllArgsConstructor()
+/**
+ * A request header. Changing a header in place is seen by the {@link Headers} holding it (see
+ * {@link Headers#generation()}): every setter stamps the header with a new value of a counter shared by
+ * all headers.
+ */
 @NoArgsConstructor
 @Data
 @Accessors(chain = true)
 public class Header {
+
+    private static final AtomicLong CHANGES = new AtomicLong();
+
     String key;
     Object value;
     String description;
     String type;
-}
 
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude @ToString.Exclude
+    private long stamp;
+
+    public Header(String key, Object value, String description, String type) {
+        this.key = key;
+        this.value = value;
+        this.description = description;
+        this.type = type;
+    }
+
+    public Header setKey(String key) {
+        this.key = key;
+        changed();
+        return this;
+    }
+
+    public Header setValue(Object value) {
+        this.value = value;
+        changed();
+        return this;
+    }
+
+    public Header setDescription(String description) {
+        this.description = description;
+        changed();
+        return this;
+    }
+
+    public Header setType(String type) {
+        this.type = type;
+        changed();
+        return this;
+    }
+
+    /**
+     * @return The number of in-place changes made to any header so far.
+     */
+    static long changes() {
+        return CHANGES.get();
+    }
+
+    /**
+     * @return The value of {@link #changes()} when this header was last changed in place, or 0.
+     */
+    long stamp() {
+        return stamp;
+    }
+
+    private void changed() {
+        stamp = CHANGES.incrementAndGet();
+    }
+}
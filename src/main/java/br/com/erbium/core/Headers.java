@@ -3,7 +3,17 @@ package br.com.erbium.core;
 import lombok.*;
 import lombok.experimental.Accessors;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
@@ -18,87 +28,159 @@ import java.util.LinkedList;
  * under the ERBIUM name are protected trademarks.
  */
 
-@AllArgsConstructor()
 @NoArgsConstructor
-@Data
-@Accessors(chain = true)
 /**
  * Represents a collection of HTTP headers and provides utility methods for header management.
+ * <p>
+ * Headers are kept in the order they were added, in the list returned by {@link #headers()}, which callers
+ * may change directly. Lookups, replacements and removals by name are case-insensitive, as HTTP header
+ * names are; names are looked up through an index built from the list.
+ * <p>
+ * The index and the OkHttp form of the headers ({@link #toOkHttpHeaders()}) are built once and reused
+ * until the list or one of its headers is changed.
  */
 public class Headers implements Cloneable {
 
-    
-    @Getter(AccessLevel.PUBLIC) @Setter(AccessLevel.PUBLIC) @Accessors(fluent = true)
-    LinkedList<Header> headers = new LinkedList<>();
+    private final HeaderList headers = new HeaderList();
+    // Built on demand from the list, dropped when it changes
+    private Map<String, List<Header>> index;
+    private okhttp3.Headers okHttpHeaders;
+    private long generation;
+    private long seenModifications;
+    // Header.changes() and the latest stamp of these headers when they were last checked
+    private long seenHeaderChanges;
+    private long seenStamp;
+
     @Getter(AccessLevel.PACKAGE) @Setter(AccessLevel.PACKAGE) @Accessors(fluent = true)
     HeadersManager headersManager;
 
-    
+    public Headers(@NonNull Collection<? extends Header> headers, HeadersManager headersManager) {
+        headers(headers);
+        this.headersManager = headersManager;
+    }
+
+    /**
+     * @return The headers in the order they were added. Changes to the list are changes to these headers.
+     */
+    public LinkedList<Header> headers() {
+        return headers;
+    }
+
+    /**
+     * Replaces all headers.
+     *
+     * @return This {@link Headers} instance for fluent chaining.
+     */
+    public Headers headers(@NonNull Collection<? extends Header> headers) {
+        // Copied first, as the given headers may be this list
+        List<Header> replacement = new ArrayList<>(headers);
+        this.headers.clear();
+        this.headers.addAll(replacement);
+        return this;
+    }
+
+    /**
+     * Same as {@link #headers()}.
+     */
+    public LinkedList<Header> getHeaders() {
+        return headers();
+    }
+
+    /**
+     * Same as {@link #headers(Collection)}.
+     */
+    public Headers setHeaders(@NonNull Collection<? extends Header> headers) {
+        return headers(headers);
+    }
+
     public Boolean isEmpty() {
         return headers.isEmpty();
     }
 
-    
+    public int size() {
+        return headers.size();
+    }
+
+    /**
+     * @return A counter incremented on every change to the headers list or to one of its headers, so a
+     * result computed from the headers can be reused while the generation is the same.
+     */
+    public long generation() {
+        sync();
+        return generation;
+    }
+
     public void addHeader(Header header) {
         headers.add(header);
     }
 
+    /**
+     * Adds the header, replacing every header with the same name. A replaced header keeps the position
+     * of the first one.
+     */
     public void setHeader(Header header) {
-        headers.remove(header);
-        headers.add(header);
+        String name = nameOf(header.getKey());
+        if (!index().containsKey(name)) {
+            headers.add(header);
+            return;
+        }
+        boolean replaced = false;
+        ListIterator<Header> iterator = headers.listIterator();
+        while (iterator.hasNext()) {
+            if (name.equals(nameOf(iterator.next().getKey()))) {
+                if (replaced) {
+                    iterator.remove();
+                } else {
+                    iterator.set(header);
+                    replaced = true;
+                }
+            }
+        }
     }
 
-    
     public void removeHeader(Header header) {
         headers.remove(header);
     }
 
-    
+    /**
+     * Removes every header with the given name, whatever its case.
+     */
     public void removeHeader(String key) {
-        // FIX: Use removeIf to prevent ConcurrentModificationException.
-        if (key != null) {
-            headers.removeIf(header -> key.equals(header.getKey()));
+        if (key != null && index().containsKey(nameOf(key))) {
+            String name = nameOf(key);
+            headers.removeIf(header -> name.equals(nameOf(header.getKey())));
         }
     }
 
     @Override
     public Headers clone() {
-        try {
-            // Perform a deep clone to prevent shared state and side effects.
-            Headers cloned = (Headers) super.clone();
-            // Create a new list for the clone
-            cloned.headers = new LinkedList<>();
-            // Copy each header into the new list
-            for (Header header : this.headers) {
-                // This assumes Header is a simple data class. If it also contained
-                // mutable objects, it would need its own deep clone method.
-                cloned.headers.add(new Header(header.getKey(), header.getValue(), header.getDescription(), header.getType()));
-            }
-            // The manager reference can be copied, as it's a link back to the parent.
-            cloned.headersManager(this.headersManager);
-            return cloned;
-        } catch (CloneNotSupportedException e) {
-            // This should not happen since we implement Cloneable.
-            throw new RuntimeException("Cloning failed for Headers", e);
+        // Perform a deep clone to prevent shared state and side effects.
+        Headers cloned = new Headers();
+        for (Header header : headers) {
+            cloned.headers.add(new Header(header.getKey(), header.getValue(), header.getDescription(), header.getType()));
         }
+        // The manager reference can be copied, as it's a link back to the parent.
+        cloned.headersManager(this.headersManager);
+        return cloned;
     }
 
-    
+    /**
+     * @return The first header with the given name, whatever its case, or null.
+     */
     public Header getHeaderByKey(String key) {
-        for (Header header : headers) {
-            if (header.getKey().equals(key))
-                return header;
+        if (key == null) {
+            return null;
         }
-        return null;
+        List<Header> named = index().get(nameOf(key));
+        return named == null ? null : named.get(0);
     }
 
-    
+    /**
+     * @return The value of the first header with the given name, whatever its case, or null.
+     */
     public Object getHeaderValue(String key) {
-        for (Header header : headers) {
-            if (header.getKey().equals(key))
-                return header.getValue();
-        }
-        return null;
+        Header header = getHeaderByKey(key);
+        return header == null ? null : header.getValue();
     }
 
     public Headers set(@NonNull String varName, Object value) {
@@ -110,14 +192,14 @@ public class Headers implements Cloneable {
         return headersManager().getEnvironment().get(varName);
     }
 
+    /**
+     * Keeps only the first header of each name.
+     */
     public Headers removeDuplicates() {
-        LinkedList<Header> uniqueHeaders = new LinkedList<>();
-        for (Header header : headers) {
-            if (uniqueHeaders.stream().noneMatch(h -> h.getKey().equals(header.getKey()))) {
-                uniqueHeaders.add(header);
-            }
+        if (index().size() < headers.size()) {
+            Set<String> seen = new HashSet<>();
+            headers.removeIf(header -> !seen.add(nameOf(header.getKey())));
         }
-        headers = uniqueHeaders;
         return this;
     }
 
@@ -132,7 +214,9 @@ public class Headers implements Cloneable {
     }
 
     public Headers removeIfHeaderKeyIsEmpty() {
-        headers.removeIf(header -> header.getKey().isEmpty());
+        if (index().containsKey("")) {
+            headers.removeIf(header -> nameOf(header.getKey()).isEmpty());
+        }
         return this;
     }
 
@@ -155,7 +239,182 @@ public class Headers implements Cloneable {
     }
 
     public Headers clear() {
-        headers().clear();
+        headers.clear();
         return this;
     }
+
+    /**
+     * Returns the headers as OkHttp headers, built once until the collection changes.
+     * <p>
+     * As with {@code Request.Builder.header(name, value)}, only the last value of a repeated name is kept.
+     * Headers without a name or a value are left out.
+     *
+     * @return The OkHttp headers.
+     */
+    public okhttp3.Headers toOkHttpHeaders() {
+        sync();
+        okhttp3.Headers built = okHttpHeaders;
+        if (built == null) {
+            okhttp3.Headers.Builder builder = new okhttp3.Headers.Builder();
+            for (Map.Entry<String, List<Header>> entry : index().entrySet()) {
+                if (entry.getKey().isEmpty()) {
+                    continue;
+                }
+                List<Header> named = entry.getValue();
+                Header last = named.get(named.size() - 1);
+                if (last.getValue() != null) {
+                    builder.add(last.getKey(), last.getValue().toString());
+                }
+            }
+            built = okHttpHeaders = builder.build();
+        }
+        return built;
+    }
+
+    /**
+     * Reuses OkHttp headers already built for the same headers, e.g. by an {@link ExecutionPlan}
+     * whose headers do not depend on variables.
+     */
+    void okHttpHeaders(okhttp3.Headers okHttpHeaders) {
+        sync();
+        this.okHttpHeaders = okHttpHeaders;
+    }
+
+    /**
+     * @return The headers by lower-case name, names in order of first appearance.
+     */
+    private Map<String, List<Header>> index() {
+        sync();
+        Map<String, List<Header>> built = index;
+        if (built == null) {
+            built = new LinkedHashMap<>();
+            for (Header header : headers) {
+                built.computeIfAbsent(nameOf(header.getKey()), name -> new ArrayList<>(1)).add(header);
+            }
+            index = built;
+        }
+        return built;
+    }
+
+    /**
+     * Drops what was derived from the headers if they changed since. Headers are only scanned for a new
+     * stamp when some header, anywhere, was changed in place since the last check.
+     */
+    private void sync() {
+        long modifications = headers.modifications();
+        boolean changed = modifications != seenModifications;
+        long headerChanges = Header.changes();
+        if (headerChanges != seenHeaderChanges) {
+            seenHeaderChanges = headerChanges;
+            long stamp = 0;
+            for (Header header : headers) {
+                stamp = Math.max(stamp, header.stamp());
+            }
+            changed |= stamp != seenStamp;
+            seenStamp = stamp;
+        }
+        if (changed) {
+            seenModifications = modifications;
+            generation++;
+            index = null;
+            okHttpHeaders = null;
+        }
+    }
+
+    private static String nameOf(String key) {
+        return key == null ? "" : key.toLowerCase(Locale.ROOT);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Headers other)) {
+            return false;
+        }
+        return headers.equals(other.headers) && Objects.equals(headersManager, other.headersManager);
+    }
+
+    @Override
+    public int hashCode() {
+        return headers.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "Headers(headers=" + headers + ")";
+    }
+
+    /**
+     * The headers list. Replacing an element is not a structural change of a {@link LinkedList}, so
+     * replacements are counted as well.
+     */
+    private static final class HeaderList extends LinkedList<Header> {
+
+        private long replacements;
+
+        long modifications() {
+            return modCount + replacements;
+        }
+
+        @Override
+        public Header set(int index, Header header) {
+            Header replaced = super.set(index, header);
+            replacements++;
+            return replaced;
+        }
+
+        @Override
+        public ListIterator<Header> listIterator(int index) {
+            ListIterator<Header> iterator = super.listIterator(index);
+            return new ListIterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Header next() {
+                    return iterator.next();
+                }
+
+                @Override
+                public boolean hasPrevious() {
+                    return iterator.hasPrevious();
+                }
+
+                @Override
+                public Header previous() {
+                    return iterator.previous();
+                }
+
+                @Override
+                public int nextIndex() {
+                    return iterator.nextIndex();
+                }
+
+                @Override
+                public int previousIndex() {
+                    return iterator.previousIndex();
+                }
+
+                @Override
+                public void remove() {
+                    iterator.remove();
+                }
+
+                @Override
+                public void set(Header header) {
+                    iterator.set(header);
+                    replacements++;
+                }
+
+                @Override
+                public void add(Header header) {
+                    iterator.add(header);
+                }
+            };
+        }
+    }
 }
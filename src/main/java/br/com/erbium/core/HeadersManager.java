@@ -2,6 +2,7 @@ package br.com.erbium.core;
 
 
 import br.com.erbium.core.base.scripts.HeadersTrigger;
+import br.com.erbium.core.base.scripts.Script;
 import br.com.erbium.core.scripts.triggers.builtin.DefaultHeadersTrigger;
 import br.com.erbium.core.interfaces.HeadersManagerOperator;
 import lombok.AccessLevel;
@@ -49,13 +50,17 @@ public class HeadersManager implements HeadersManagerOperator {
     @Getter(AccessLevel.PROTECTED) @Accessors(fluent = true)
     final Map<String, HeadersTrigger> queuedHeaderTriggers = new LinkedHashMap<>();
 
+    // Keeps the merged default headers between commits
+    @Getter(AccessLevel.PACKAGE) @Accessors(fluent = true)
+    private final DefaultHeadersTrigger defaultHeadersTrigger = new DefaultHeadersTrigger();
+
     public HeadersManager() {
 
     }
 
     
     public CollectionEnvironment getEnvironment() {
-        return parentEndpoint().parentCollection().collectionEnvironment();
+        return parentEndpoint().environment();
     }
 
     
@@ -80,10 +85,14 @@ public class HeadersManager implements HeadersManagerOperator {
 
     
     public Headers getLiteralHeaders() {
+        return getLiteralHeaders(headers());
+    }
+
+    public Headers getLiteralHeaders(@NonNull Headers headers) {
 
         Headers literalHeaders = new Headers();
 
-        for (Header originalHeader : headers().headers) {
+        for (Header originalHeader : headers.headers()) {
             String key = getEnvironment().replaceVars(originalHeader.getKey());
             if (key.isEmpty())
                 continue;
@@ -142,7 +151,7 @@ public class HeadersManager implements HeadersManagerOperator {
 
     void queueHeaderTrigger(@NonNull String name, @NonNull Class<? extends HeadersTrigger> triggerClass) {
         try {
-            HeadersTrigger trigger = triggerClass.getDeclaredConstructor().newInstance();
+            HeadersTrigger trigger = Script.newInstance(triggerClass);
             queueHeaderTrigger(name, trigger);
         } catch (Exception e) {
             throw new RuntimeException("Failed to instantiate HeadersTrigger from class: " + triggerClass.getName(), e);
@@ -154,22 +163,7 @@ public class HeadersManager implements HeadersManagerOperator {
     }
 
     void queueHeaderTrigger(@NonNull String name, @NonNull Consumer<HeadersManagerOperator> consumer) {
-        HeadersTrigger wrapper = new HeadersTrigger() {
-            @Override
-            public void run() {
-                consumer.accept(HeadersManager.this);
-            }
-
-            @Override
-            public void getBasicRequirementHeaders() {
-
-            }
-
-            @Override
-            public void getCleanedupHeaders() {
-
-            }
-        };
+        HeadersTrigger wrapper = new ConsumerHeadersTrigger(consumer);
         wrapper.attach(this, parentEndpoint());
         queuedHeaderTriggers.put(name, wrapper);
     }
@@ -184,7 +178,7 @@ public class HeadersManager implements HeadersManagerOperator {
     void runHeaderTriggers() {
 
         if (queuedHeaderTriggers.isEmpty()) {
-            HeadersTrigger script = new DefaultHeadersTrigger();
+            DefaultHeadersTrigger script = defaultHeadersTrigger();
             script.attach(this, parentEndpoint());
             script.run();
             return;
@@ -194,4 +188,52 @@ public class HeadersManager implements HeadersManagerOperator {
             script.run();
         }
     }
+
+    /**
+     * Copies the headers and headers triggers into the headers manager of a forked endpoint.
+     */
+    HeadersManager forkFor(@NonNull Endpoint fork) {
+        HeadersManager copy = new HeadersManager();
+        copy.parentEndpoint(fork);
+        copy.headers(headers().clone());
+        copy.headers().headersManager(copy);
+        if (savedHeaders() != null) {
+            copy.savedHeaders(savedHeaders().clone());
+        }
+        queuedHeaderTriggers.forEach((name, trigger) -> {
+            HeadersTrigger forked = ForkedScripts.copyOf(trigger);
+            forked.attach(copy, fork);
+            copy.queuedHeaderTriggers.put(name, forked);
+        });
+        return copy;
+    }
+
+    private static final class ConsumerHeadersTrigger extends HeadersTrigger {
+
+        private final Consumer<HeadersManagerOperator> consumer;
+
+        private ConsumerHeadersTrigger(Consumer<HeadersManagerOperator> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public ConsumerHeadersTrigger copy() {
+            return new ConsumerHeadersTrigger(consumer);
+        }
+
+        @Override
+        public void run() {
+            consumer.accept(headersManagerOperator());
+        }
+
+        @Override
+        public void getBasicRequirementHeaders() {
+
+        }
+
+        @Override
+        public void getCleanedupHeaders() {
+
+        }
+    }
 }
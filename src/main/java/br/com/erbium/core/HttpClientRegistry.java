@@ -0,0 +1,166 @@
+package br.com.erbium.core;
+
+import lombok.NonNull;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+
+/**
+ * Workspace-scoped registry of shared {@link OkHttpClient} instances.
+ * <p>
+ * Every client handed out by the registry is derived from a single base client, so all of them
+ * share one {@link ConnectionPool} and one {@link Dispatcher}. Clients are keyed by the effective
+ * transport configuration ({@link TransportKey}), which means repeated submissions of endpoints with
+ * the same SSL setup and timeouts reuse the same client and keep their connections alive.
+ * <p>
+ * The registry is owned by a {@link Workspace} and is shut down when the workspace is closed.
+ */
+public class HttpClientRegistry {
+
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_READ_TIMEOUT = Duration.ofSeconds(10);
+    public static final Duration DEFAULT_WRITE_TIMEOUT = Duration.ofSeconds(30);
+    public static final Duration DEFAULT_CALL_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final int MAX_IDLE_CONNECTIONS = 64;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+
+    private final OkHttpClient baseClient;
+    private final Map<TransportKey, OkHttpClient> clients = new ConcurrentHashMap<>();
+    private volatile boolean shutdown = false;
+
+    /**
+     * Effective transport configuration used as the registry key.
+     * SSL contexts and trust managers are compared by identity.
+     */
+    public record TransportKey(SSLContext sslContext,
+                               X509TrustManager trustManager,
+                               String protocol,
+                               Duration connectTimeout,
+                               Duration readTimeout,
+                               Duration writeTimeout,
+                               Duration callTimeout) {
+    }
+
+    public HttpClientRegistry() {
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(Integer.MAX_VALUE);
+        dispatcher.setMaxRequestsPerHost(Integer.MAX_VALUE);
+        this.baseClient = new OkHttpClient.Builder()
+                .dispatcher(dispatcher)
+                .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+                .eventListenerFactory(TimingEventListener.FACTORY)
+                .build();
+    }
+
+    /**
+     * Returns the shared client for the given SSL setup, using the default timeouts.
+     *
+     * @param sslContext    The committed SSL context, or null for the platform default.
+     * @param trustManagers The committed trust managers, or null for the platform default.
+     * @return A shared {@link OkHttpClient}.
+     */
+    public OkHttpClient getClient(SSLContext sslContext, TrustManager[] trustManagers) {
+        return getClient(keyOf(sslContext, trustManagers));
+    }
+
+    /**
+     * Returns the shared client for the given transport configuration, creating it on first use.
+     *
+     * @param key The transport configuration.
+     * @return A shared {@link OkHttpClient}.
+     * @throws IllegalStateException if the registry has been shut down.
+     */
+    public OkHttpClient getClient(@NonNull TransportKey key) {
+        if (shutdown) {
+            throw new IllegalStateException("The HTTP client registry has been shut down.");
+        }
+        return clients.computeIfAbsent(key, this::createClient);
+    }
+
+    /**
+     * Builds the registry key for the given SSL setup, using the default timeouts.
+     *
+     * @param sslContext    The SSL context, or null.
+     * @param trustManagers The trust managers, or null.
+     * @return The {@link TransportKey}.
+     */
+    public static TransportKey keyOf(SSLContext sslContext, TrustManager[] trustManagers) {
+        X509TrustManager trustManager = null;
+        if (sslContext != null) {
+            if (trustManagers == null || trustManagers.length == 0 || !(trustManagers[0] instanceof X509TrustManager)) {
+                throw new IllegalStateException("An SSL context requires an X509TrustManager.");
+            }
+            trustManager = (X509TrustManager) trustManagers[0];
+        }
+        return new TransportKey(
+                sslContext,
+                trustManager,
+                sslContext == null ? null : sslContext.getProtocol(),
+                DEFAULT_CONNECT_TIMEOUT,
+                DEFAULT_READ_TIMEOUT,
+                DEFAULT_WRITE_TIMEOUT,
+                DEFAULT_CALL_TIMEOUT
+        );
+    }
+
+    private OkHttpClient createClient(TransportKey key) {
+        OkHttpClient.Builder builder = baseClient.newBuilder()
+                .connectTimeout(key.connectTimeout())
+                .readTimeout(key.readTimeout())
+                .writeTimeout(key.writeTimeout())
+                .callTimeout(key.callTimeout())
+                .hostnameVerifier((hostname, session) -> true);
+        if (key.sslContext() != null) {
+            builder.sslSocketFactory(key.sslContext().getSocketFactory(), key.trustManager());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns the number of distinct clients currently held by the registry.
+     *
+     * @return The number of clients.
+     */
+    public int size() {
+        return clients.size();
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * Releases the shared dispatcher threads and pooled connections.
+     * Further calls to {@link #getClient(TransportKey)} fail.
+     */
+    public synchronized void shutdown() {
+        if (shutdown) {
+            return;
+        }
+        shutdown = true;
+        clients.clear();
+        baseClient.dispatcher().executorService().shutdown();
+        baseClient.connectionPool().evictAll();
+    }
+}
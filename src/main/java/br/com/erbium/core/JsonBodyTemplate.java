@@ -0,0 +1,296 @@
+package br.com.erbium.core;
+
+import br.com.erbium.utils.LenientJsonReader;
+import br.com.erbium.utils.LenientJsonReader.RawPlaceholder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.InvalidJsonException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+
+/**
+ * A JSON request body serialized once into literal JSON and variable slots, bound when the body is sent.
+ * <p>
+ * Unlike a {@link VariableTemplate} over the serialized text, each slot knows where it stands:
+ * <ul>
+ *     <li>a placeholder inside a key or string value is replaced by the variable's text, escaped for JSON;</li>
+ *     <li>a {@link RawPlaceholder} is replaced by the variable's JSON value, unquoted. A string value is
+ *     written as JSON when it is JSON (e.g. {@code "5"} is sent as 5) and as a JSON string otherwise.</li>
+ * </ul>
+ * Placeholders in keys and strings whose variable is not defined are left untouched, as in
+ * {@link VariableTemplate}. A raw placeholder whose variable is not defined cannot be written as JSON, so
+ * binding it fails.
+ */
+final class JsonBodyTemplate {
+
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+    private static final JsonStringEncoder ENCODER = JsonStringEncoder.getInstance();
+
+    private final String source;
+    // literals.length == names.length + 1; literal i precedes slot i
+    private final String[] literals;
+    private final String[] names;
+    private final String[] placeholders;
+    private final boolean[] raw;
+
+    private JsonBodyTemplate(String source, String[] literals, String[] names, String[] placeholders, boolean[] raw) {
+        this.source = source;
+        this.literals = literals;
+        this.names = names;
+        this.placeholders = placeholders;
+        this.raw = raw;
+    }
+
+    /**
+     * Serializes a parsed body tree as compact JSON, splitting it at its placeholders.
+     *
+     * @param tree The tree, as read by {@link LenientJsonReader}.
+     * @return The template.
+     */
+    static JsonBodyTemplate of(Object tree) throws JsonProcessingException {
+        Builder builder = new Builder();
+        builder.write(tree);
+        return builder.build();
+    }
+
+    /**
+     * @return true if the body contains at least one placeholder.
+     */
+    boolean hasVariables() {
+        return names.length > 0;
+    }
+
+    /**
+     * @return The names of the variables referenced by the body, in order of appearance.
+     */
+    List<String> variableNames() {
+        return List.of(names);
+    }
+
+    /**
+     * @return The compact JSON with the placeholders unbound.
+     */
+    String source() {
+        return source;
+    }
+
+    /**
+     * Binds the slots through the given resolver. Variables with a null value are written as an empty
+     * text in strings and as null in raw slots.
+     *
+     * @param resolver The variable lookup.
+     * @return The JSON body.
+     * @throws IllegalStateException if the variable of a raw slot is not defined.
+     */
+    String render(VariableTemplate.Resolver resolver) {
+        if (names.length == 0) {
+            return source;
+        }
+        StringBuilder builder = new StringBuilder(source.length() + 16 * names.length);
+        for (int i = 0; i < names.length; i++) {
+            builder.append(literals[i]);
+            Object value = resolver.resolve(names[i]);
+            if (value == VariableTemplate.MISSING) {
+                if (raw[i]) {
+                    throw undefined(names[i]);
+                }
+                builder.append(escape(placeholders[i]));
+            } else if (raw[i]) {
+                builder.append(toJson(value));
+            } else if (value != null) {
+                builder.append(escape(String.valueOf(value)));
+            }
+        }
+        builder.append(literals[names.length]);
+        return builder.toString();
+    }
+
+    /**
+     * Copies a parsed body tree with its placeholders bound through the given resolver, as {@link #render}
+     * sends them: placeholders in keys and strings are replaced by the variable's text, and a
+     * {@link RawPlaceholder} by the variable's JSON value.
+     *
+     * @param tree     The tree, or a part of it, as read by {@link LenientJsonReader}.
+     * @param resolver The variable lookup.
+     * @return The bound copy.
+     * @throws IllegalStateException if the variable of a raw placeholder is not defined.
+     */
+    static Object bind(Object tree, VariableTemplate.Resolver resolver) {
+        if (tree instanceof Map<?, ?> map) {
+            Map<Object, Object> bound = new LinkedHashMap<>(Math.max(4, map.size() * 4 / 3 + 1));
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                Object key = entry.getKey() instanceof String name ? bindString(name, resolver) : entry.getKey();
+                bound.put(key, bind(entry.getValue(), resolver));
+            }
+            return bound;
+        }
+        if (tree instanceof List<?> list) {
+            List<Object> bound = new ArrayList<>(list.size());
+            for (Object item : list) {
+                bound.add(bind(item, resolver));
+            }
+            return bound;
+        }
+        if (tree instanceof String string) {
+            return bindString(string, resolver);
+        }
+        if (tree instanceof RawPlaceholder placeholder) {
+            Object value = resolver.resolve(placeholder.name());
+            if (value == VariableTemplate.MISSING) {
+                throw undefined(placeholder.name());
+            }
+            if (value instanceof String string) {
+                // as in toJson: "5", "true" or "null" (or a JSON document) are read as JSON
+                try {
+                    return LenientJsonReader.read(string.trim());
+                } catch (InvalidJsonException e) {
+                    return string;
+                }
+            }
+            return value;
+        }
+        return tree;
+    }
+
+    private static String bindString(String text, VariableTemplate.Resolver resolver) {
+        return text.contains("{{") ? VariableTemplate.compile(text).render(resolver, "") : text;
+    }
+
+    private static IllegalStateException undefined(String name) {
+        return new IllegalStateException("The JSON body cannot be bound: variable '" + name
+                + "' of the unquoted placeholder {{" + name + "}} is not defined.");
+    }
+
+    private static char[] escape(String text) {
+        return ENCODER.quoteAsString(text);
+    }
+
+    private static String toJson(Object value) {
+        if (value == null) {
+            return "null";
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Boolean) {
+            return value.toString();
+        }
+        try {
+            if (value instanceof String string) {
+                // "5", "true" or "null" (or a JSON document) are written as JSON; any other text as a string
+                try {
+                    return JSON_MAPPER.writeValueAsString(LenientJsonReader.read(string.trim()));
+                } catch (InvalidJsonException e) {
+                    return JSON_MAPPER.writeValueAsString(string);
+                }
+            }
+            return JSON_MAPPER.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to write the value of a body placeholder as JSON", e);
+        }
+    }
+
+    private static final class Builder {
+        private final StringBuilder source = new StringBuilder();
+        private final StringBuilder literal = new StringBuilder();
+        private final List<String> literals = new ArrayList<>();
+        private final List<String> names = new ArrayList<>();
+        private final List<String> placeholders = new ArrayList<>();
+        private final List<Boolean> raw = new ArrayList<>();
+
+        void write(Object value) throws JsonProcessingException {
+            if (value instanceof Map<?, ?> map) {
+                append("{");
+                boolean first = true;
+                for (Map.Entry<?, ?> entry : map.entrySet()) {
+                    if (!first) {
+                        append(",");
+                    }
+                    first = false;
+                    writeString(String.valueOf(entry.getKey()));
+                    append(":");
+                    write(entry.getValue());
+                }
+                append("}");
+            } else if (value instanceof List<?> list) {
+                append("[");
+                for (int i = 0; i < list.size(); i++) {
+                    if (i > 0) {
+                        append(",");
+                    }
+                    write(list.get(i));
+                }
+                append("]");
+            } else if (value instanceof String string) {
+                writeString(string);
+            } else if (value instanceof RawPlaceholder placeholder) {
+                slot(placeholder.name(), placeholder.toString(), true);
+            } else {
+                append(JSON_MAPPER.writeValueAsString(value));
+            }
+        }
+
+        private void writeString(String string) {
+            append("\"");
+            if (!string.contains("{{")) {
+                append(escape(string));
+            } else {
+                VariableTemplate template = VariableTemplate.compile(string);
+                int count = template.variableNames().size();
+                for (int i = 0; i < count; i++) {
+                    append(escape(template.literal(i)));
+                    slot(template.name(i), template.placeholder(i), false);
+                }
+                append(escape(template.literal(count)));
+            }
+            append("\"");
+        }
+
+        private void slot(String name, String placeholder, boolean rawSlot) {
+            literals.add(literal.toString());
+            literal.setLength(0);
+            names.add(name);
+            placeholders.add(placeholder);
+            raw.add(rawSlot);
+            source.append(rawSlot ? placeholder : new String(escape(placeholder)));
+        }
+
+        private void append(CharSequence text) {
+            literal.append(text);
+            source.append(text);
+        }
+
+        private void append(char[] text) {
+            literal.append(text);
+            source.append(text);
+        }
+
+        JsonBodyTemplate build() {
+            literals.add(literal.toString());
+            boolean[] rawSlots = new boolean[raw.size()];
+            for (int i = 0; i < rawSlots.length; i++) {
+                rawSlots[i] = raw.get(i);
+            }
+            return new JsonBodyTemplate(
+                    source.toString(),
+                    literals.toArray(new String[0]),
+                    names.toArray(new String[0]),
+                    placeholders.toArray(new String[0]),
+                    rawSlots
+            );
+        }
+    }
+}
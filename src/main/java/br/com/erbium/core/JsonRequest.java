@@ -15,6 +15,8 @@ package br.com.erbium.core;
 import br.com.erbium.core.interfaces.IJsonRequest;
 import br.com.erbium.core.interfaces.ISubmission;
 import br.com.erbium.core.interfaces.RequestManagerJsonRequest;
+import br.com.erbium.utils.JsonPaths;
+import br.com.erbium.utils.LenientJsonReader;
 import br.com.erbium.utils.StringUtil;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -25,9 +27,13 @@ import lombok.NonNull;
 import lombok.Setter;
 import lombok.experimental.Accessors;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -58,75 +64,172 @@ public class JsonRequest extends JsonRequestModuleImporter implements IJsonReque
     @Setter(AccessLevel.PACKAGE)
     @Accessors(fluent = true)
     protected String body; // original request body
+    // true once the body has been normalized and parsed; the parsed tree is then the source of truth
     private boolean normalized = false;
-    String todelete;
     DocumentContext requestContext;
+    // bumped whenever the tree may have changed; the serialized body template is reused while it is unchanged
+    private int version = 0;
+    private int bodyTemplateVersion = -1;
+    private JsonBodyTemplate bodyTemplate;
+    // the encoded body when the template has no placeholders, reused while the tree is unchanged
+    private byte[] bodyBytes;
 
 
     // Configure JsonPath. Default options are usually fine.
     private static final Configuration JSON_PATH_CONFIGURATION = Configuration.builder()
             .build();
 
-    // ObjectMapper for pretty printing. It's thread-safe and efficient to reuse.
-    private static final ObjectMapper PRETTY_PRINTER_MAPPER = new ObjectMapper();
+    // ObjectMapper for serialization. It's thread-safe and efficient to reuse.
+    private static final ObjectMapper JSON_MAPPER = new ObjectMapper();
+    private static final byte[] EMPTY_BODY_BYTES = "{}".getBytes(StandardCharsets.UTF_8);
 
 
-    private String toPrettyString() {
+    /**
+     * @return The compact body template, serialized again only after the tree has changed;
+     * null for an uninitialized body.
+     */
+    private JsonBodyTemplate bodyTemplate() {
         tryNormalization();
         if (requestContext == null && body == null) {
-            return "{}"; // Return an empty object for an uninitialized body
+            return null;
         }
         try {
-            Object jsonObject = getBodyContext().json();
-            String prettyJson = PRETTY_PRINTER_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(jsonObject);
-            //return parentRequestManager().parentEndpoint().parentEndpointsCollection().collectionEnvironment().replaceVars(prettyJson);
-            return prettyJson;
+            if (bodyTemplate == null || bodyTemplateVersion != version) {
+                bodyTemplate = JsonBodyTemplate.of(requestContext.json());
+                bodyBytes = bodyTemplate.hasVariables() ? null : bodyTemplate.source().getBytes(StandardCharsets.UTF_8);
+                bodyTemplateVersion = version;
+            }
+            return bodyTemplate;
         } catch (JsonProcessingException e) {
             // This should not happen if the internal state is valid JSON,
             // so we wrap it in a runtime exception to signal a critical failure.
-            throw new RuntimeException("Failed to generate pretty JSON string from internal context", e);
+            throw new RuntimeException("Failed to generate JSON string from internal context", e);
         }
     }
 
 
+    /**
+     * @return The names of the variables referenced by the body placeholders.
+     */
+    List<String> bodyVariableNames() {
+        JsonBodyTemplate template = bodyTemplate();
+        return template == null ? List.of() : template.variableNames();
+    }
+
+    /**
+     * Returns a copy of the parsed tree with its placeholders bound to the current variables, as the body
+     * would be sent. Changes to the copy do not reach the body: change it through this request, e.g.
+     * {@link #set(String, Object)}, so the cached serialization is discarded.
+     */
     public DocumentContext getBodyContext() {
+        return requestContext == null ? null : JsonPath.parse(bound(requestContext.json()), JSON_PATH_CONFIGURATION);
+    }
+
+    /**
+     * Returns the parsed tree for a change, discarding the cached serialization. Read-only paths use
+     * {@link #requestContext} directly, so the serialization is kept. The tree is never handed out, so
+     * it only changes through this class.
+     */
+    private DocumentContext mutableContext() {
+        version++;
         return requestContext;
     }
 
 
+    /**
+     * Serializes the parsed tree as pretty-printed JSON, with its placeholders bound to the current variables.
+     * Requests are sent compact, see {@link #getBodyBytes(BaseEnvironment)}.
+     */
     public String getBody() {
-        return toPrettyString();
+        JsonBodyTemplate template = bodyTemplate();
+        if (template == null) {
+            return "{}"; // Return an empty object for an uninitialized body
+        }
+        BaseEnvironment environment = environment();
+        return prettyPrint(environment == null ? template.source() : environment.render(template));
+    }
+
+    /**
+     * Serializes the parsed tree as compact UTF-8, as it is sent. Placeholders are kept in the tree and only
+     * bound to the environment here, at commit time. A body without placeholders is encoded once and the
+     * same array is returned until the tree changes, so it must not be modified.
+     */
+    byte[] getBodyBytes(BaseEnvironment environment) {
+        JsonBodyTemplate template = bodyTemplate();
+        if (template == null) {
+            return EMPTY_BODY_BYTES;
+        }
+        if (bodyBytes != null) {
+            return bodyBytes;
+        }
+        return environment.render(template).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return The body with its placeholders left unbound, as a new definition can be built from it.
+     */
+    String getRawBody() {
+        if (!isParsed()) {
+            return body;
+        }
+        return bodyTemplate().source();
+    }
+
+    /**
+     * Pretty-prints a JSON document for logging. Text that is not valid JSON is returned as it is.
+     */
+    public static String prettyPrint(String json) {
+        if (json == null || json.isEmpty()) {
+            return json;
+        }
+        try {
+            return JSON_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(JSON_MAPPER.readTree(json));
+        } catch (JsonProcessingException e) {
+            return json;
+        }
+    }
+
+    boolean isParsed() {
+        return normalized && requestContext != null;
     }
 
 
     public JsonRequest setContext() {
+        version++;
         if (body.trim().isEmpty()) {
             // Handle empty or whitespace-only bodies by creating an empty JSON object context
             this.requestContext = JsonPath.parse("{}", JSON_PATH_CONFIGURATION);
         } else {
-            String normalizedBody = normalize(body);
-            if (!isValidJson(normalizedBody)) {
-                throw new IllegalStateException("The provided body is not a valid JSON string: " + normalize(body));
+            try {
+                this.requestContext = JsonPath.parse(parseLenient(body), JSON_PATH_CONFIGURATION);
+            } catch (InvalidJsonException e) {
+                throw new IllegalStateException("The provided body is not a valid JSON string: " + body, e);
             }
-            this.requestContext = JsonPath.parse(normalizedBody, JSON_PATH_CONFIGURATION);
         }
         return this;
     }
 
     public JsonRequest setContext(String body) {
+        version++;
         this.body = body;
         if (!isValidJson(body)) {
-            throw new IllegalStateException("The provided body is not a valid JSON string: " + normalize(body));
+            throw new IllegalStateException("The provided body is not a valid JSON string: " + body);
         }
         this.requestContext = JsonPath.parse(body, JSON_PATH_CONFIGURATION);
+        this.normalized = true;
         return this;
     }
 
+    private static final Pattern UNQUOTED_KEY = Pattern.compile("(?<=[{,\\s])([a-zA-Z0-9_]+)(?=\\s*:)");
+
+    /**
+     * @deprecated Bodies and values are now read with {@link LenientJsonReader}, which accepts unquoted keys
+     * without rewriting the text and never touches string values.
+     */
+    @Deprecated
     public static String quoteJsonKeys(String input) {
         // Regex: procura por palavras seguidas de dois pontos que não estão entre aspas
-        Pattern pattern = Pattern.compile("(?<=[{,\\s])([a-zA-Z0-9_]+)(?=\\s*:)");
-
-        Matcher matcher = pattern.matcher(input);
+        Matcher matcher = UNQUOTED_KEY.matcher(input);
         StringBuffer result = new StringBuffer();
 
         while (matcher.find()) {
@@ -140,6 +243,10 @@ public class JsonRequest extends JsonRequestModuleImporter implements IJsonReque
 
     public JsonRequest setBody(@NonNull String body) {
         this.body = body;
+        // The tree is rebuilt from the new body on the next access
+        this.normalized = false;
+        this.requestContext = null;
+        version++;
         return this;
     }
 
@@ -147,11 +254,11 @@ public class JsonRequest extends JsonRequestModuleImporter implements IJsonReque
     public JsonRequest setJsonObject(String jsonPath, String value) {
         tryNormalization();
         try {
-            Object parsedValue = JSON_PATH_CONFIGURATION.jsonProvider().parse(normalize(value));
+            Object parsedValue = parseLenient(value);
             if (!(parsedValue instanceof Map)) {
                 throw new IllegalArgumentException("Provided string is not a valid JSON object for path: " + jsonPath);
             }
-            getBodyContext().set(jsonPath, parsedValue);
+            mutableContext().set(JsonPaths.compile(jsonPath), parsedValue);
         } catch (com.jayway.jsonpath.InvalidJsonException e) {
             throw new IllegalArgumentException("Invalid JSON object string provided for path: " + jsonPath, e);
         }
@@ -169,11 +276,11 @@ public class JsonRequest extends JsonRequestModuleImporter implements IJsonReque
     public JsonRequest setJsonArray(String jsonPath, String value) {
         tryNormalization();
         try {
-            Object parsedValue = JSON_PATH_CONFIGURATION.jsonProvider().parse(normalize(value));
+            Object parsedValue = parseLenient(value);
             if (!(parsedValue instanceof List)) {
                 throw new IllegalArgumentException("Provided string is not a valid JSON array for path: " + jsonPath);
             }
-            getBodyContext().set(jsonPath, parsedValue);
+            mutableContext().set(JsonPaths.compile(jsonPath), parsedValue);
         } catch (com.jayway.jsonpath.InvalidJsonException e) {
             throw new IllegalArgumentException("Invalid JSON array string provided for path: " + jsonPath, e);
         }
@@ -190,8 +297,8 @@ public class JsonRequest extends JsonRequestModuleImporter implements IJsonReque
     public JsonRequest addToJsonArray(String jsonPath, String value) {
         tryNormalization();
         try {
-            Object parsedValue = JSON_PATH_CONFIGURATION.jsonProvider().parse(normalize(value));
-            getBodyContext().add(jsonPath, parsedValue);
+            Object parsedValue = parseLenient(value);
+            mutableContext().add(JsonPaths.compile(jsonPath), parsedValue);
         } catch (PathNotFoundException e) {
             throw new IllegalArgumentException("JSON array path not found: " + jsonPath, e);
         } catch (com.jayway.jsonpath.InvalidJsonException e) {
@@ -204,7 +311,7 @@ public class JsonRequest extends JsonRequestModuleImporter implements IJsonReque
     public JsonRequest addToJsonArray(String jsonPath, @NonNull Object value) {
         tryNormalization();
         try {
-            getBodyContext().add(jsonPath, value);
+            mutableContext().add(JsonPaths.compile(jsonPath), copyOf(value));
         } catch (PathNotFoundException e) {
             throw new IllegalArgumentException("JSON array path not found: " + jsonPath, e);
         }
@@ -217,8 +324,8 @@ public class JsonRequest extends JsonRequestModuleImporter implements IJsonReque
         try {
             TypeRef<List<Object>> typeRef = new TypeRef<>() {
             };
-            Object objectToDelete = JSON_PATH_CONFIGURATION.jsonProvider().parse(normalize(value));
-            List<Object> currentArray = getBodyContext().read(jsonPath, typeRef);
+            Object objectToDelete = parseLenient(value);
+            List<Object> currentArray = requestContext.read(JsonPaths.compile(jsonPath), typeRef);
 
             if (currentArray != null) {
                 // IMPROVEMENT: Added logic to handle deep equality checks for lists as well as maps.
@@ -229,7 +336,7 @@ public class JsonRequest extends JsonRequestModuleImporter implements IJsonReque
                 } else {
                     currentArray.removeIf(item -> Objects.equals(item, objectToDelete));
                 }
-                this.requestContext.set(jsonPath, currentArray);
+                mutableContext().set(JsonPaths.compile(jsonPath), currentArray);
             }
         } catch (PathNotFoundException e) {
             System.err.println("Warning: JSON array path not found for deletion: " + jsonPath + ". No deletion performed.");
@@ -245,7 +352,7 @@ public class JsonRequest extends JsonRequestModuleImporter implements IJsonReque
         try {
             TypeRef<List<Object>> typeRef = new TypeRef<>() {
             };
-            List<Object> currentArray = getBodyContext().read(jsonPath, typeRef);
+            List<Object> currentArray = requestContext.read(JsonPaths.compile(jsonPath), typeRef);
 
             if (currentArray != null) {
                 // Use the existing deep equals logic to find and remove the object.
@@ -256,7 +363,7 @@ public class JsonRequest extends JsonRequestModuleImporter implements IJsonReque
                 } else {
                     currentArray.removeIf(item -> Objects.equals(item, objectToDelete));
                 }
-                this.requestContext.set(jsonPath, currentArray);
+                mutableContext().set(JsonPaths.compile(jsonPath), currentArray);
             }
         } catch (PathNotFoundException e) {
             System.err.println("Warning: JSON array path not found for deletion: " + jsonPath + ". No deletion performed.");
@@ -268,7 +375,7 @@ public class JsonRequest extends JsonRequestModuleImporter implements IJsonReque
     public JsonRequest deleteJsonProperty(@NonNull String jsonPath) {
         tryNormalization();
         try {
-            getBodyContext().delete(jsonPath);
+            mutableContext().delete(JsonPaths.compile(jsonPath));
         } catch (PathNotFoundException e) {
             System.err.println("Warning: JSON property path not found for deletion: " + jsonPath + ". No deletion performed.");
         }
@@ -292,7 +399,7 @@ public class JsonRequest extends JsonRequestModuleImporter implements IJsonReque
 
     public JsonRequest setString(@NonNull String jsonPath, @NonNull String value) {
         tryNormalization();
-        updateRequest(jsonPath, environment().replaceVars(value));
+        updateRequest(jsonPath, value);
         return this;
     }
 
@@ -360,12 +467,12 @@ public class JsonRequest extends JsonRequestModuleImporter implements IJsonReque
 
         // Try setting it directly
         try {
-            getBodyContext().set(jsonPath, null);
+            mutableContext().set(JsonPaths.compile(jsonPath), null);
             return this;
         } catch (PathNotFoundException e) {
             // Try to build the missing path manually
             createPathIfMissing(jsonPath);
-            getBodyContext().set(jsonPath, null);
+            mutableContext().set(JsonPaths.compile(jsonPath), null);
             return this;
         }
     }
@@ -373,9 +480,9 @@ public class JsonRequest extends JsonRequestModuleImporter implements IJsonReque
     public JsonRequest removeIfValueIsNull(@NonNull String jsonPath) {
         tryNormalization();
         try {
-            Object value = getBodyContext().read(jsonPath);
+            Object value = JsonPaths.read(requestContext, jsonPath);
             if (value == null) {
-                getBodyContext().delete(jsonPath);
+                mutableContext().delete(JsonPaths.compile(jsonPath));
             }
         } catch (PathNotFoundException e) {
             // Property not found, nothing to remove.
@@ -386,7 +493,7 @@ public class JsonRequest extends JsonRequestModuleImporter implements IJsonReque
 
     public JsonRequest removeAllNulls() {
         tryNormalization();
-        Object root = getBodyContext().json();
+        Object root = mutableContext().json();
         if (root instanceof Map) {
             deleteAllPropertiesIfValueIsNullRecursive((Map<String, Object>) root);
             this.requestContext = JsonPath.parse(root, JSON_PATH_CONFIGURATION);
@@ -427,23 +534,21 @@ public class JsonRequest extends JsonRequestModuleImporter implements IJsonReque
     @SuppressWarnings("unchecked")
     public Map<String, Object> getBodyAsMap() {
         tryNormalization();
-        Object json = getBodyContext().json();
+        Object json = bound(requestContext.json());
         return (json instanceof Map) ? (Map<String, Object>) json : null;
     }
 
     private void updateRequest(@NonNull String jsonPath, @NonNull Object value) {
         tryNormalization();
-        if (getBodyContext() == null)
+        if (requestContext == null)
             throw new IllegalStateException("Request context has not been initialized. Please set the body first.");
         try {
-            Object processedValue = (value instanceof String) ? normalize((String) value) : value;
-            getBodyContext().set(jsonPath, processedValue);
+            // Placeholders in the value are kept and bound at commit, with the rest of the body
+            mutableContext().set(JsonPaths.compile(jsonPath), copyOf(value));
         } catch (PathNotFoundException e) {
             createPathIfMissing(jsonPath);
             updateRequest(jsonPath, value);
             //throw new IllegalArgumentException("Failed to set value. The path '" + jsonPath + "' or a part of it does not exist or is not a valid structure for setting a value.", e);
-        } finally {
-            this.body = normalize(requestContext.jsonString());
         }
     }
 
@@ -462,13 +567,14 @@ public class JsonRequest extends JsonRequestModuleImporter implements IJsonReque
         return (T) this.modules.get(moduleClass);
     }
 
-    private String normalize(@NonNull String value) {
-        if (environment() == null)
-            throw new IllegalArgumentException("Environment is not set because the endpoint is not assigned to a endpointsCollection. Cannot normalize value: " + value);
-        if (value == null) {
-            throw new IllegalArgumentException("Body or value is null");
-        }
-        return environment().replaceVars(quoteJsonKeys(value));
+    /**
+     * Reads a relaxed JSON document or value in one pass. Its placeholders stay in the tree and are bound
+     * when the body is sent.
+     *
+     * @throws InvalidJsonException if the text is not valid relaxed JSON.
+     */
+    private Object parseLenient(@NonNull String json) {
+        return LenientJsonReader.read(json);
     }
 
     @Override
@@ -481,6 +587,16 @@ public class JsonRequest extends JsonRequestModuleImporter implements IJsonReque
         return parentRequestManager().send();
     }
 
+    @Override
+    public CompletableFuture<ErbiumResponse> submitAsync() {
+        return parentRequestManager().submitAsync();
+    }
+
+    @Override
+    public CompletableFuture<ErbiumResponse> sendAsync() {
+        return parentRequestManager().sendAsync();
+    }
+
     @Override
     public Collection post() {
         return parentRequestManager().post();
@@ -519,21 +635,17 @@ public class JsonRequest extends JsonRequestModuleImporter implements IJsonReque
     @SuppressWarnings("unchecked")
     private void createPathIfMissing(String jsonPath) {
         String[] tokens = jsonPath.replaceAll("^\\$\\.", "").split("\\.");
-        DocumentContext ctx = getBodyContext();
-        Object node = ctx.json();
+        Object node = mutableContext().json();
 
+        // Walks the tree once instead of reading every partial path
         Map<String, Object> current = (Map<String, Object>) node;
-        StringBuilder pathBuilder = new StringBuilder("$");
-
-        for (int i = 0; i <= tokens.length - 1; i++) {
-            String token = tokens[i];
-            pathBuilder.append(".").append(token);
-            try {
-                Object next = ctx.read(pathBuilder.toString());
+        for (String token : tokens) {
+            if (current.containsKey(token)) {
+                Object next = current.get(token);
                 if (next instanceof Map) {
                     current = (Map<String, Object>) next;
                 }
-            } catch (PathNotFoundException e) {
+            } else {
                 // Create missing map
                 Map<String, Object> newNode = new java.util.LinkedHashMap<>();
                 current.put(token, newNode);
@@ -548,15 +660,16 @@ public class JsonRequest extends JsonRequestModuleImporter implements IJsonReque
     @SuppressWarnings("unchecked")
     public List<Object> getBodyAsList() {
         tryNormalization();
-        Object json = getBodyContext().json();
+        Object json = bound(requestContext.json());
         return (json instanceof List) ? (List<Object>) json : null;
     }
 
 
+    @SuppressWarnings("unchecked")
     public <T> T read(String jsonPath) {
         tryNormalization();
         try {
-            return getBodyContext().read(jsonPath);
+            return (T) bound(JsonPaths.read(requestContext, jsonPath));
         } catch (PathNotFoundException e) {
             return null;
         }
@@ -566,12 +679,44 @@ public class JsonRequest extends JsonRequestModuleImporter implements IJsonReque
     public <T> T read(String jsonPath, TypeRef<T> typeRef) {
         tryNormalization();
         try {
-            return getBodyContext().read(jsonPath, typeRef);
+            Object value = bound(JsonPaths.read(requestContext, jsonPath));
+            return JSON_PATH_CONFIGURATION.mappingProvider().map(value, typeRef, JSON_PATH_CONFIGURATION);
         } catch (PathNotFoundException e) {
             return null;
         }
     }
 
+    /**
+     * @return A copy of a part of the tree with its placeholders bound to the current variables, as the body
+     * would be sent; a plain copy while the endpoint has no environment.
+     */
+    private Object bound(Object node) {
+        BaseEnvironment environment = environment();
+        return environment == null ? copyOf(node) : environment.bind(node);
+    }
+
+    /**
+     * Copies the maps and lists of a tree, so that the body tree and values read from it or set into it
+     * can change independently.
+     */
+    private static Object copyOf(Object node) {
+        if (node instanceof Map<?, ?> map) {
+            Map<Object, Object> copy = new LinkedHashMap<>(Math.max(4, map.size() * 4 / 3 + 1));
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                copy.put(entry.getKey(), copyOf(entry.getValue()));
+            }
+            return copy;
+        }
+        if (node instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object item : list) {
+                copy.add(copyOf(item));
+            }
+            return copy;
+        }
+        return node;
+    }
+
     private boolean deepEquals(Map<String, Object> map1, Map<String, Object> map2) {
         if (map1 == map2)
             return true;
@@ -620,7 +765,7 @@ public class JsonRequest extends JsonRequestModuleImporter implements IJsonReque
     }
 
     CollectionEnvironment environment() {
-        return parentRequestManager().parentEndpoint().parentCollection().collectionEnvironment();
+        return parentRequestManager().parentEndpoint().environment();
     }
 
     //@Override
@@ -633,9 +778,15 @@ public class JsonRequest extends JsonRequestModuleImporter implements IJsonReque
         return (Collection) parentRequestManager().parentEndpoint().parentCollection();
     }
 
+    /**
+     * Normalizes and parses the body once. Later mutations are applied to the parsed tree directly.
+     */
     private void tryNormalization() {
-            this.body = normalize(this.body);
-            setContext();
+        if (isParsed()) {
+            return;
+        }
+        setContext();
+        normalized = true;
     }
 
     @Override
@@ -0,0 +1,11 @@
+package br.com.erbium.core;
+
+/**
+ * A single message handed to a {@link ReportRouter}.
+ *
+ * @param level   The severity or type of the log entry.
+ * @param item    The category of the message.
+ * @param message The message.
+ */
+public record LogEvent(LogType level, LogItem item, String message) {
+}
@@ -1,5 +1,7 @@
 package br.com.erbium.core;
 
+import java.util.List;
+
 public interface ReportRouter {
     void commit();
     void setTargetOutput(int targetOutput);
@@ -9,4 +11,15 @@ public interface ReportRouter {
     void route(LogType level, String message);
     void route(LogItem item, String message);
     String getName();
+
+    /**
+     * Routes a batch of messages in order. Routers that can write a batch at once should override this.
+     *
+     * @param events The messages to route.
+     */
+    default void route(List<LogEvent> events) {
+        for (LogEvent event : events) {
+            route(event.level(), event.item(), event.message());
+        }
+    }
 }
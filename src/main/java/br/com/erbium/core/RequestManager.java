@@ -3,6 +3,7 @@ package br.com.erbium.core;
 import br.com.erbium.core.base.scripts.ErbiumSubmissionScript;
 import br.com.erbium.core.base.scripts.RequestScript;
 import br.com.erbium.core.base.scripts.RequestTrigger;
+import br.com.erbium.core.base.scripts.Script;
 import br.com.erbium.core.interfaces.IJsonRequest;
 import br.com.erbium.core.scripts._default.submission.ErbiumDefaultSubmissionScript;
 import br.com.erbium.core.enums.Method;
@@ -19,7 +20,10 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -57,13 +61,16 @@ public class RequestManager {
     @Accessors(fluent = true)
     CommittedRequestProperties committedRequestProperties;
 
+    // Creates the submission script of each submission, as a script holds the properties and response of one call
     @Getter(AccessLevel.PACKAGE)
     @Setter(AccessLevel.PACKAGE)
     @Accessors(fluent = true)
-    private ErbiumSubmissionScript erbiumSubmissionScript;
+    private Supplier<? extends ErbiumSubmissionScript> submissionScriptFactory;
 
     Map<String, String> params = new LinkedHashMap<>();
 
+    private ExecutionPlan executionPlan;
+
     @Getter(AccessLevel.PROTECTED)
     @Accessors(fluent = true)
     final Map<String, RequestTrigger> queuedRequestTriggers = new LinkedHashMap<>();
@@ -172,12 +179,7 @@ public class RequestManager {
 
 
     IJsonRequest getInternalJsonRequest() {
-        String body = jsonRequest().body();
-        if (body != null) {
-            String normalizedBody = parentEndpoint().parentCollection().collectionEnvironment().replaceVars(body);
-            jsonRequest().body(normalizedBody);
-        }
-
+        // The body placeholders are kept in the request tree and bound when the request is committed
         requestType(RequestType.JSON);
         return jsonRequest;
     }
@@ -212,12 +214,58 @@ public class RequestManager {
     }
 
 
+    /**
+     * Returns the compiled plan of the current endpoint definition, compiling it again if the definition
+     * has changed since the last commit.
+     */
+    ExecutionPlan executionPlan() {
+        ExecutionPlan plan = executionPlan;
+        if (plan == null || !plan.matches(this)) {
+            plan = ExecutionPlan.compile(this);
+            executionPlan = plan;
+        }
+        return plan;
+    }
+
     public void commit() {
-        if (committedRequestProperties != null) {
-            throw new IllegalStateException("Submission parameters have already been set for this request.");
+        synchronized (parentEndpoint()) {
+            if (committedRequestProperties != null) {
+                throw new IllegalStateException("Submission parameters have already been set for this request.");
+            }
+            committedRequestProperties = snapshot(parentEndpoint());
+        }
+    }
+
+    /**
+     * Commits the current endpoint definition into a new {@link CommittedRequestProperties}.
+     * <p>
+     * Commits of the same endpoint are serialized on the endpoint monitor, because triggers and the
+     * execution plan update the endpoint state. The snapshot itself is not shared with anyone: it belongs
+     * to the submission that requested it, so the HTTP calls of concurrent submissions run in parallel.
+     *
+     * @param target The endpoint being submitted: this request manager's endpoint, or a fork sharing its
+     *               definition. Variables are resolved against the target's environment.
+     */
+    private CommittedRequestProperties snapshot(Endpoint target) {
+        synchronized (parentEndpoint()) {
+            CommittedRequestProperties properties = new CommittedRequestProperties(parentEndpoint(), target);
+            properties.commit();
+            return properties;
+        }
+    }
+
+    /**
+     * Takes the properties committed beforehand with {@link #commit()}, or commits a new snapshot.
+     */
+    private CommittedRequestProperties takeSnapshot(Endpoint target) {
+        if (target != parentEndpoint()) {
+            return snapshot(target);
+        }
+        synchronized (parentEndpoint()) {
+            CommittedRequestProperties properties = committedRequestProperties;
+            committedRequestProperties = null;
+            return properties != null ? properties : snapshot(target);
         }
-        committedRequestProperties = new CommittedRequestProperties(parentEndpoint());
-        committedRequestProperties.commit();
     }
 
     Collection submit() {
@@ -225,15 +273,70 @@ public class RequestManager {
     }
 
     Collection send() {
+        return send(parentEndpoint());
+    }
+
+    /**
+     * Submits this request manager's definition on behalf of the target endpoint, which receives the response.
+     */
+    Collection send(Endpoint target) {
+        ErbiumSubmissionScript script = prepareSubmission(target);
+        script.run();
+
+        // add response here *** parentEndpoint().responseManager().addResponse(response);
+        target.responseManager().addResponse(script.response());
+        recordMetrics(target, script.response());
+        return target.parentCollection();
+    }
+
+    CompletableFuture<ErbiumResponse> submitAsync() {
+        return sendAsync();
+    }
+
+    CompletableFuture<ErbiumResponse> sendAsync() {
+        return sendAsync(parentEndpoint());
+    }
 
-        if (committedRequestProperties == null) {
-            commit();
+    /**
+     * Commits the request on the calling thread and submits it without blocking.
+     * The future completes once the response has been added and the response triggers have run.
+     */
+    CompletableFuture<ErbiumResponse> sendAsync(Endpoint target) {
+        ErbiumSubmissionScript script = prepareSubmission(target);
+        return script.runAsync().thenApply(response -> {
+            target.responseManager().addResponse(response);
+            recordMetrics(target, response);
+            return response;
+        });
+    }
+
+    private void recordMetrics(Endpoint target, ErbiumResponse response) {
+        if (response == null) {
+            return;
         }
+        long latency = response.timings() != null && response.timings().totalNanos() > 0
+                ? response.timings().totalNanos()
+                : TimeUnit.MILLISECONDS.toNanos(response.time());
+        target.workspaceContext().metrics().record(
+                target.parentCollection().getName(),
+                target.getName(),
+                latency,
+                response.code(),
+                response.throwable() != null
+        );
+    }
+
+    /**
+     * Commits the request (unless it was committed beforehand), prints the environment table
+     * and attaches the committed properties to the submission script.
+     */
+    private ErbiumSubmissionScript prepareSubmission(Endpoint target) {
+
+        CommittedRequestProperties properties = takeSnapshot(target);
 
-        boolean printEnvironmentTable = out().getOutputConfiguration().getDestination(LogItem.ENVIRONMENT_TABLE) != TargetOutput.NONE;
-        if (printEnvironmentTable) {
+        if (out().isEnabled(LogItem.ENVIRONMENT_TABLE)) {
             // 1. Get the original map with Object values
-            Map<String, Object> allVariables = parentEndpoint().parentCollection().collectionEnvironment().getAllVariables();
+            Map<String, Object> allVariables = target.environment().getAllVariables();
 
             // 2. Convert it to a Map<String, String> using a stream
             Map<String, String> stringVariables = allVariables.entrySet().stream()
@@ -246,26 +349,11 @@ public class RequestManager {
             out().log(LogType.UDEF, LogItem.ENVIRONMENT_TABLE, "\n\n" + MapPrinter.getFormattedTable(stringVariables) + "\n");
         }
 
-        // You can then use the formattedTable, for example, by printing it
-        ErbiumResponse response = null;
-        Throwable t = null;
-
-        if (erbiumSubmissionScript == null) {
-            ErbiumDefaultSubmissionScript script = new ErbiumDefaultSubmissionScript();
-            script.attach(committedRequestProperties);
-            script.run();
-            response = script.response();
-
-        } else {
-            erbiumSubmissionScript().attach(committedRequestProperties);
-            erbiumSubmissionScript().run();
-            response = erbiumSubmissionScript().response();
-        }
-
-        // add response here *** parentEndpoint().responseManager().addResponse(response);
-        parentEndpoint().responseManager().addResponse(response);
-        committedRequestProperties(null);
-        return parentEndpoint().parentCollection();
+        ErbiumSubmissionScript script = submissionScriptFactory == null
+                ? new ErbiumDefaultSubmissionScript()
+                : submissionScriptFactory.get();
+        script.attach(properties);
+        return script;
     }
 
     public ResponseManager addResponse(ErbiumResponse response) {
@@ -342,87 +430,50 @@ public class RequestManager {
 
 
     Collection post() {
-        if (method() == null) {
-            setMethod(Method.POST);
-        }
-        if (method().equals("POST")) {
-            send();
-        } else {
-            throw new UnsupportedOperationException("Endpoint is set as " + method());
-        }
-        return parentEndpoint().parentCollection();
+        return send(parentEndpoint(), Method.POST);
     }
 
     public Collection get() {
-        if (method() == null) {
-            setMethod(Method.GET);
-        }
-        if (method().equals("GET")) {
-            send();
-        } else {
-            throw new UnsupportedOperationException("Endpoint is set as " + method());
-        }
-        return parentEndpoint().parentCollection();
+        return send(parentEndpoint(), Method.GET);
     }
 
     public Collection put() {
-        if (method() == null) {
-            parentEndpoint().setMethod(Method.PUT);
-        }
-        if (method().equals("PUT")) {
-            send();
-        } else {
-            throw new UnsupportedOperationException("Endpoint is set as " + method());
-        }
-        return parentEndpoint().parentCollection();
+        return send(parentEndpoint(), Method.PUT);
     }
 
     public Collection options() {
-        if (method() == null) {
-            setMethod(Method.OPTIONS);
-        }
-        if (method().equals("OPTIONS")) {
-            send();
-        } else {
-            throw new UnsupportedOperationException("Endpoint is set as " + method());
-        }
-        return parentEndpoint().parentCollection();
+        return send(parentEndpoint(), Method.OPTIONS);
     }
 
     public Collection patch() {
-        if (method() == null) {
-            parentEndpoint().setMethod(Method.PATCH);
-        }
-        if (method().equals("PATCH")) {
-            send();
-        } else {
-            throw new UnsupportedOperationException("Endpoint is set as " + method());
-        }
-        return parentEndpoint().parentCollection();
+        return send(parentEndpoint(), Method.PATCH);
     }
 
     public Collection delete() {
-        if (method() == null) {
-            parentEndpoint().setMethod(Method.DELETE);
-        }
-        if (method().equals("DELETE")) {
-            send();
-        } else {
-            throw new UnsupportedOperationException("Endpoint is set as " + method());
-        }
-        return parentEndpoint().parentCollection();
+        return send(parentEndpoint(), Method.DELETE);
     }
 
     public Collection head() {
-        if (method() == null) {
-            setMethod(Method.HEAD);
+        return send(parentEndpoint(), Method.HEAD);
+    }
+
+    /**
+     * Sends the request with the given method, which is set on the endpoint if it has none yet.
+     *
+     * @throws UnsupportedOperationException if the endpoint is set with a different method.
+     */
+    Collection send(Endpoint target, Method method) {
+        // The definition is only changed under the endpoint monitor, like commits
+        synchronized (parentEndpoint()) {
+            if (method() == null) {
+                setMethod(method);
+            }
         }
-        if (method().equals("HEAD")) {
-            send();
-        } else {
+        if (!method().equals(method.name())) {
             throw new UnsupportedOperationException("Endpoint is set as " + method());
         }
-        return parentEndpoint().parentCollection();
+        send(target);
+        return target.parentCollection();
     }
 
     void setRequestType(RequestType requestType) {
@@ -451,25 +502,14 @@ public class RequestManager {
 
 
     void addRequestScript(@NonNull String name, @NonNull Consumer<RequestManager> consumer) {
-        RequestScript wrapper = new RequestScript() {
-            @Override
-            public Endpoint exec() {
-                run();
-                return requestManager().parentEndpoint();
-            }
-
-            @Override
-            public void run() {
-                consumer.accept(requestManager());
-            }
-        };
+        RequestScript wrapper = new ConsumerRequestScript(consumer);
         wrapper.attach(RequestManager.this);
         requestScripts().put(name, wrapper);
     }
 
     void addRequestScript(@NonNull String name, @NonNull Class<? extends RequestScript> scriptClass) {
         try {
-            RequestScript script = (RequestScript) scriptClass.getDeclaredConstructor().newInstance();
+            RequestScript script = Script.newInstance(scriptClass);
             addRequestScript(name, scriptClass.cast(script));
         } catch (Exception e) {
             throw new RuntimeException("Failed to instantiate request script from class: " + scriptClass.getName(), e);
@@ -564,7 +604,7 @@ public class RequestManager {
     void queueRequestTrigger(@NonNull String name, @NonNull Class<? extends RequestTrigger> scriptClass) {
         RequestTrigger script = null;
         try {
-            script = scriptClass.getDeclaredConstructor().newInstance();
+            script = Script.newInstance(scriptClass);
         } catch (Exception e) {
             throw new RuntimeException("Failed to instantiate RequestTrigger from class: " + scriptClass.getName(), e);
         }
@@ -572,18 +612,7 @@ public class RequestManager {
     }
 
     void queueRequestTrigger(@NonNull String name, @NonNull Consumer<RequestManager> consumer) {
-        RequestTrigger wrapper = new RequestTrigger() {
-            @Override
-            public void run() {
-                exec();
-            }
-
-            @Override
-            public Endpoint exec() {
-                consumer.accept(RequestManager.this);
-                return ((RequestManager) requestManager()).parentEndpoint();
-            }
-        };
+        RequestTrigger wrapper = new ConsumerRequestTrigger(consumer);
         wrapper.attach(RequestManager.this);
         queuedRequestTriggers().put(name, wrapper);
     }
@@ -607,4 +636,91 @@ public class RequestManager {
         return this;
     }
 
+    /**
+     * Copies this definition into the request manager of a forked endpoint. The JSON body is copied
+     * from its tree (or its raw text, if not parsed yet). The submission script factory is shared, so each
+     * submission of the fork still gets its own script.
+     */
+    RequestManager forkFor(@NonNull Endpoint fork) {
+        RequestManager copy = new RequestManager();
+        copy.setEndpointEngine(fork);
+        copy.setRequestType(requestType());
+        copy.eagerRequestValidation(eagerRequestValidation());
+        copy.method(method());
+        copy.host = host;
+        copy.url(url());
+        copy.params.putAll(params);
+
+        // The fork reads the body again, keeping its placeholders as slots
+        String body = jsonRequest().getRawBody();
+        if (body != null) {
+            copy.jsonRequest().setBody(body);
+        }
+        copy.urlEncoded().formData.putAll(urlEncoded().formData);
+        copy.xmlRequest().body = xmlRequest().body;
+        copy.submissionScriptFactory(submissionScriptFactory());
+
+        requestScripts().forEach((name, script) -> {
+            RequestScript forked = ForkedScripts.copyOf(script);
+            forked.attach(copy);
+            copy.requestScripts().put(name, forked);
+        });
+        queuedRequestTriggers().forEach((name, trigger) -> {
+            RequestTrigger forked = ForkedScripts.copyOf(trigger);
+            forked.attach(copy);
+            copy.queuedRequestTriggers().put(name, forked);
+        });
+        return copy;
+    }
+
+    private static final class ConsumerRequestScript extends RequestScript {
+
+        private final Consumer<RequestManager> consumer;
+
+        private ConsumerRequestScript(Consumer<RequestManager> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public ConsumerRequestScript copy() {
+            return new ConsumerRequestScript(consumer);
+        }
+
+        @Override
+        public Endpoint exec() {
+            run();
+            return requestManager().parentEndpoint();
+        }
+
+        @Override
+        public void run() {
+            consumer.accept(requestManager());
+        }
+    }
+
+    private static final class ConsumerRequestTrigger extends RequestTrigger {
+
+        private final Consumer<RequestManager> consumer;
+
+        private ConsumerRequestTrigger(Consumer<RequestManager> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public ConsumerRequestTrigger copy() {
+            return new ConsumerRequestTrigger(consumer);
+        }
+
+        @Override
+        public void run() {
+            exec();
+        }
+
+        @Override
+        public Endpoint exec() {
+            consumer.accept(requestManager());
+            return requestManager().parentEndpoint();
+        }
+    }
+
 }
@@ -0,0 +1,151 @@
+package br.com.erbium.core;
+
+import java.util.Locale;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+
+/**
+ * Per-phase timing breakdown of a single HTTP call, in nanoseconds.
+ * <p>
+ * Filled in by {@link TimingEventListener} from OkHttp call events. Phases that did not happen
+ * (for example DNS and connect on a pooled connection, or TLS on plain HTTP) are reported as zero.
+ * When a call is retried or redirected, the durations of all attempts are added up.
+ */
+public class RequestTimings {
+
+    private volatile long callStart;
+    private volatile long callEnd;
+
+    private volatile long dnsStart;
+    private volatile long connectStart;
+    private volatile long secureConnectStart;
+    private volatile long requestStart;
+    private volatile long requestEnd;
+    private volatile long responseBodyStart;
+
+    private volatile long dnsNanos;
+    private volatile long connectNanos;
+    private volatile long tlsNanos;
+    private volatile long requestWriteNanos;
+    private volatile long timeToFirstByteNanos;
+    private volatile long bodyReadNanos;
+
+    void callStart() {
+        callStart = System.nanoTime();
+    }
+
+    void callEnd() {
+        callEnd = System.nanoTime();
+    }
+
+    void dnsStart() {
+        dnsStart = System.nanoTime();
+    }
+
+    void dnsEnd() {
+        dnsNanos += System.nanoTime() - dnsStart;
+    }
+
+    void connectStart() {
+        connectStart = System.nanoTime();
+        secureConnectStart = 0;
+    }
+
+    void secureConnectStart() {
+        secureConnectStart = System.nanoTime();
+    }
+
+    void secureConnectEnd() {
+        tlsNanos += System.nanoTime() - secureConnectStart;
+    }
+
+    void connectEnd() {
+        // OkHttp reports TLS inside the connect phase; keep only the TCP part here
+        long end = secureConnectStart > 0 ? secureConnectStart : System.nanoTime();
+        connectNanos += end - connectStart;
+    }
+
+    void requestStart() {
+        requestStart = System.nanoTime();
+        requestEnd = 0;
+    }
+
+    void requestEnd() {
+        requestEnd = System.nanoTime();
+        requestWriteNanos += requestEnd - requestStart;
+    }
+
+    void responseHeadersStart() {
+        if (requestEnd > 0) {
+            timeToFirstByteNanos += System.nanoTime() - requestEnd;
+        }
+    }
+
+    void responseBodyStart() {
+        responseBodyStart = System.nanoTime();
+    }
+
+    void responseBodyEnd() {
+        bodyReadNanos += System.nanoTime() - responseBodyStart;
+    }
+
+    public long dnsNanos() {
+        return dnsNanos;
+    }
+
+    public long connectNanos() {
+        return connectNanos;
+    }
+
+    public long tlsNanos() {
+        return tlsNanos;
+    }
+
+    public long requestWriteNanos() {
+        return requestWriteNanos;
+    }
+
+    public long timeToFirstByteNanos() {
+        return timeToFirstByteNanos;
+    }
+
+    public long bodyReadNanos() {
+        return bodyReadNanos;
+    }
+
+    /**
+     * @return The time from call start to call end, or to now if the call has not ended yet.
+     */
+    public long totalNanos() {
+        if (callStart == 0) {
+            return 0;
+        }
+        long end = callEnd == 0 ? System.nanoTime() : callEnd;
+        return end - callStart;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f ms", nanos / 1_000_000.0);
+    }
+
+    @Override
+    public String toString() {
+        return "dns " + millis(dnsNanos) +
+                ", connect " + millis(connectNanos) +
+                ", tls " + millis(tlsNanos) +
+                ", request " + millis(requestWriteNanos) +
+                ", ttfb " + millis(timeToFirstByteNanos) +
+                ", download " + millis(bodyReadNanos) +
+                ", total " + millis(totalNanos());
+    }
+}
@@ -0,0 +1,127 @@
+package br.com.erbium.core;
+
+import lombok.NonNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+
+/**
+ * Append-only file holding response bodies evicted from memory by the {@link ResponseRetention} budget.
+ * <p>
+ * Each body is written once and gets an index. Reading an index back maps just that region of the file,
+ * so the body is decoded straight from the page cache. The file is deleted when the archive is closed.
+ */
+final class ResponseArchive implements Closeable {
+
+    private final Path file;
+    private final FileChannel channel;
+
+    private long[] offsets = new long[64];
+    private int[] lengths = new int[64];
+    private int count;
+    private long end;
+
+    ResponseArchive(@NonNull Path directory) {
+        try {
+            Files.createDirectories(directory);
+            this.file = Files.createTempFile(directory, "erbium-responses-", ".bin");
+            this.file.toFile().deleteOnExit();
+            this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not create the response archive in " + directory, e);
+        }
+    }
+
+    /**
+     * Appends a body to the archive.
+     *
+     * @return The index to read it back with.
+     */
+    synchronized int write(@NonNull String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        try {
+            long position = end;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write to the response archive " + file, e);
+        }
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, count * 2);
+            lengths = Arrays.copyOf(lengths, count * 2);
+        }
+        offsets[count] = end;
+        lengths[count] = bytes.length;
+        end += bytes.length;
+        return count++;
+    }
+
+    /**
+     * Reads back the body written at the given index.
+     */
+    String read(int index) {
+        long offset;
+        int length;
+        synchronized (this) {
+            if (index < 0 || index >= count) {
+                throw new IndexOutOfBoundsException("Index: " + index);
+            }
+            offset = offsets[index];
+            length = lengths[index];
+        }
+        if (length == 0) {
+            return "";
+        }
+        try {
+            return StandardCharsets.UTF_8.decode(channel.map(FileChannel.MapMode.READ_ONLY, offset, length)).toString();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read from the response archive " + file, e);
+        }
+    }
+
+    /**
+     * @return The number of bodies archived.
+     */
+    synchronized int size() {
+        return count;
+    }
+
+    /**
+     * @return The archive size on disk, in bytes.
+     */
+    synchronized long sizeInBytes() {
+        return end;
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            // nothing left to do with an archive that cannot be deleted
+        }
+    }
+}
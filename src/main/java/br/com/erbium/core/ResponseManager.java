@@ -15,9 +15,11 @@ package br.com.erbium.core;
 
 import br.com.erbium.core.base.scripts.ResponseScript;
 import br.com.erbium.core.base.scripts.ResponseTrigger;
+import br.com.erbium.core.base.scripts.Script;
 import br.com.erbium.core.interfaces.ResponseManagerOperator;
+import br.com.erbium.utils.JsonPathExtractor;
+import br.com.erbium.utils.JsonPaths;
 import br.com.erbium.utils.StringUtil;
-import com.jayway.jsonpath.JsonPath;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
@@ -25,6 +27,7 @@ import lombok.Setter;
 import lombok.experimental.Accessors;
 import okhttp3.MediaType;
 
+import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.Map;
@@ -70,6 +73,11 @@ public class ResponseManager implements ResponseManagerOperator {
 
     @Getter(AccessLevel.PROTECTED) @Accessors(fluent = true)
     final Map<String, String> qrsetMap = new LinkedHashMap<>();
+    // bumped whenever the queued qrset extractions change
+    private int qrsetGeneration;
+    // compiled from the distinct qrset paths, and compiled again when they change
+    private JsonPathExtractor qrsetExtractor;
+    private int qrsetExtractorGeneration;
 
     public ResponseManager setResponseHistorySize(@NonNull int size) {
         if (size <= 0) {
@@ -79,17 +87,44 @@ public class ResponseManager implements ResponseManagerOperator {
             throw new IllegalArgumentException("Cannot change the size of the response history once it has been set");
         }
         if (size != DEFAULT_SIZE) {
+            RotatingBuffer<ErbiumResponse> previous = responseStore;
             responseStore = new RotatingBuffer<>(size);
             maxSize = size;
+            ResponseRetention retention = retention();
+            if (retention != null) {
+                previous.getAll().forEach(retention::release);
+            }
         }
         return this;
     }
 
-    public void addResponse(ErbiumResponse response) {
-        responseStore().add(response);
+    /**
+     * Stores the response and runs the response triggers. Synchronized because asynchronous
+     * submissions complete on dispatcher threads.
+     * <p>
+     * The response is accounted for by the workspace {@link ResponseRetention} budget, which may evict
+     * older responses of any endpoint.
+     */
+    public synchronized void addResponse(ErbiumResponse response) {
+        ErbiumResponse dropped = responseStore().add(response);
+        ResponseRetention retention = retention();
+        if (retention != null) {
+            if (dropped != null) {
+                retention.release(dropped);
+            }
+            retention.retain(response);
+        }
         runResponseTriggers();
     }
 
+    private ResponseRetention retention() {
+        Endpoint endpoint = parentEndpoint();
+        if (endpoint == null || endpoint.parentCollection() == null || endpoint.parentCollection().workspace() == null) {
+            return null;
+        }
+        return endpoint.workspaceContext().responseRetention();
+    }
+
     public ErbiumResponse getLastResponse() {
         return responseStore().get(0);
     }
@@ -115,25 +150,14 @@ public class ResponseManager implements ResponseManagerOperator {
     }
 
     void addResponseScript(@NonNull String name, @NonNull Consumer<ResponseManagerOperator> consumer) {
-        ResponseScript wrapper = new ResponseScript() {
-            @Override
-            public ResponseScript exec() {
-                run();
-                return this;
-            }
-
-            @Override
-            public void run() {
-                consumer.accept(ResponseManager.this);
-            }
-        };
+        ResponseScript wrapper = new ConsumerResponseScript(consumer);
         wrapper.attach(this);
         responseScripts().put(name, wrapper);
     }
 
     void addResponseScript(@NonNull String name, @NonNull Class<? extends ResponseScript> scriptClass) {
         try {
-            ResponseScript script = scriptClass.getDeclaredConstructor().newInstance();
+            ResponseScript script = Script.newInstance(scriptClass);
             addResponseScript(name, script);
         } catch (Exception e) {
             throw new RuntimeException("Failed to instantiate response script from class: " + scriptClass.getName(), e);
@@ -235,7 +259,7 @@ public class ResponseManager implements ResponseManagerOperator {
     void queueResponseTrigger(@NonNull String name, @NonNull Class<? extends ResponseTrigger> scriptClass) {
         ResponseTrigger script = null;
         try {
-            script = scriptClass.getDeclaredConstructor().newInstance();
+            script = Script.newInstance(scriptClass);
         } catch (Exception e) {
             throw new RuntimeException("Failed to instantiate response trigger from class: " + scriptClass.getName(), e);
         }
@@ -243,16 +267,35 @@ public class ResponseManager implements ResponseManagerOperator {
     }
 
     void queueResponseTrigger(@NonNull String name, @NonNull Consumer<ResponseManager> consumer) {
-        ResponseTrigger wrapper = new ResponseTrigger() {
-            @Override
-            public void run() {
-                consumer.accept(ResponseManager.this);
-            }
-        };
+        ResponseTrigger wrapper = new ConsumerResponseTrigger(consumer);
         wrapper.attach(this);
         queuedResponseTriggers().put(name, wrapper);
     }
 
+    /**
+     * Creates the response manager of a forked endpoint: same history size, queued variable assignments,
+     * scripts and triggers, and an empty response history.
+     */
+    ResponseManager forkFor(@NonNull Endpoint fork) {
+        ResponseManager copy = new ResponseManager();
+        copy.parentEndpoint(fork);
+        if (maxSize() != null) {
+            copy.setResponseHistorySize(maxSize());
+        }
+        copy.qrsetMap().putAll(qrsetMap());
+        responseScripts().forEach((name, script) -> {
+            ResponseScript forked = ForkedScripts.copyOf(script);
+            forked.attach(copy);
+            copy.responseScripts().put(name, forked);
+        });
+        queuedResponseTriggers().forEach((name, trigger) -> {
+            ResponseTrigger forked = ForkedScripts.copyOf(trigger);
+            forked.attach(copy);
+            copy.queuedResponseTriggers().put(name, forked);
+        });
+        return copy;
+    }
+
     
     void removeResponseTrigger(@NonNull String name) {
         if (queuedResponseTriggers().containsKey(name)) {
@@ -276,11 +319,67 @@ public class ResponseManager implements ResponseManagerOperator {
             script.run();
         }
 
-        for (String key : qrsetMap.keySet()) {
-            rset(key, qrsetMap().get(key));
+        runQueuedExtractions();
+    }
+
+    /**
+     * Runs the queued {@code qrset} extractions. When the last response is JSON and has not been parsed yet,
+     * the scalar values are all read in one streaming pass (see {@link JsonPathExtractor}); the others go
+     * through {@link #rset(String, String)}.
+     */
+    private void runQueuedExtractions() {
+        if (qrsetMap.isEmpty()) {
+            return;
+        }
+        ErbiumResponse response = getLastResponse();
+        Map<String, Object> values = Map.of();
+        if (!response.isParsed() && jsonContentType(response) != null) {
+            JsonPathExtractor extractor = qrsetExtractor;
+            if (extractor == null || qrsetExtractorGeneration != qrsetGeneration) {
+                extractor = JsonPathExtractor.compile(qrsetMap.values());
+                qrsetExtractor = extractor;
+                qrsetExtractorGeneration = qrsetGeneration;
+            }
+            try {
+                values = extractor.extract(response.body());
+            } catch (IOException e) {
+                // Not strict JSON: the document parser decides
+            }
+        }
+
+        for (Map.Entry<String, String> entry : qrsetMap.entrySet()) {
+            String jsonPath = entry.getValue();
+            Object value = values.get(jsonPath);
+            if (value == null && !values.containsKey(jsonPath)) {
+                rset(entry.getKey(), jsonPath);
+            } else if (value == JsonPathExtractor.NOT_FOUND) {
+                System.out.println("WARNING: No value found for JSON path: " + jsonPath + ". Variables were not set.");
+                set(entry.getKey(), null);
+            } else {
+                setExtracted(entry.getKey(), value);
+            }
         }
     }
 
+    /**
+     * @return The content type if the response has a complete JSON body, else null.
+     */
+    private static MediaType jsonContentType(ErbiumResponse response) {
+        if (response.body() == null || response.bodyTruncated()) {
+            return null;
+        }
+        MediaType contentType = contentType(response);
+        return contentType != null && contentType.toString().contains("application/json") ? contentType : null;
+    }
+
+    private static MediaType contentType(ErbiumResponse response) {
+        MediaType contentType = response.responseBody() == null ? null : response.responseBody().contentType();
+        if (contentType == null && response.headers() != null && response.headers().get("Content-Type") != null) {
+            contentType = MediaType.parse(response.headers().get("Content-Type"));
+        }
+        return contentType;
+    }
+
     public ResponseManager set(@NonNull String varName, Object value) {
         parentEndpoint().parentCollection().set(varName, value);
         return this;
@@ -298,6 +397,7 @@ public class ResponseManager implements ResponseManagerOperator {
     // queues an auto set of variables based on response
     public ResponseManager qrset(@NonNull String varName, @NonNull String value) {
         qrsetMap().put(varName, value);
+        qrsetGeneration++;
         return this;
     }
 
@@ -311,17 +411,20 @@ public class ResponseManager implements ResponseManagerOperator {
             String value = pairs[i + 1];
             qrsetMap().put(varName, value);
         }
+        qrsetGeneration++;
         return this;
     }
 
     // unqueue variables assignment
     public ResponseManager uqrset(@NonNull String varName) {
         qrsetMap().remove(varName);
+        qrsetGeneration++;
         return this;
     }
 
     public ResponseManager uqrset() {
         qrsetMap().clear();
+        qrsetGeneration++;
         return this;
     }
 
@@ -334,39 +437,46 @@ public class ResponseManager implements ResponseManagerOperator {
             set(varName, null);
             return this;
         }
-        MediaType contentType = response.responseBody().contentType();
-        if (contentType == null) {
-            System.out.println("WARNING: No response content type found. Variables were not set.");
+        if (response.bodyTruncated()) {
+            System.out.println("WARNING: Response body was truncated by its body capture policy. Variables were not set.");
             set(varName, null);
             return this;
         }
-        if (!contentType.toString().contains("application/json")) {
-            System.out.println("WARNING: Content type is not JSON. Variables were not set.");
+        // The OkHttp body is released when the response is evicted; its headers are kept
+        if (jsonContentType(response) == null) {
+            System.out.println(contentType(response) == null
+                    ? "WARNING: No response content type found. Variables were not set."
+                    : "WARNING: Content type is not JSON. Variables were not set.");
             set(varName, null);
             return this;
         }
 
         Object value = null;
         try {
-            value = JsonPath.read(responseBody, jsonPath);
-            if (value instanceof Number num) {
-                if (num instanceof Integer) {
-                    value = num.intValue();
-                } else if (num instanceof Long) {
-                    value = num.longValue();
-                } else {
-                    value = num.doubleValue();
-                }
-            }
+            value = JsonPaths.read(response.document(), jsonPath);
         } catch (Exception e) {
             System.out.println("WARNING: No value found for JSON path: " + jsonPath + ". Variables were not set.");
             set(varName, null);
             return this;
         }
+        setExtracted(varName, value);
+        return this;
+    }
+
+    private void setExtracted(String varName, Object value) {
+        if (value instanceof Number num) {
+            if (num instanceof Integer) {
+                value = num.intValue();
+            } else if (num instanceof Long) {
+                value = num.longValue();
+            } else {
+                value = num.doubleValue();
+            }
+        }
 
         if (value == null) {
             set(varName, null);
-            return this;
+            return;
         }
 
         // Determine the type and store it in the environment
@@ -379,11 +489,54 @@ public class ResponseManager implements ResponseManagerOperator {
                 // Handle other types or throw an exception if the type is not supported
                 set(varName, value.toString());
         }
-        return this;
     }
 
     public ResponseManager print(@NonNull String... messages) {
         StringUtil.print(messages);
         return this;
     }
+
+    private static final class ConsumerResponseScript extends ResponseScript {
+
+        private final Consumer<ResponseManagerOperator> consumer;
+
+        private ConsumerResponseScript(Consumer<ResponseManagerOperator> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public ConsumerResponseScript copy() {
+            return new ConsumerResponseScript(consumer);
+        }
+
+        @Override
+        public ResponseScript exec() {
+            run();
+            return this;
+        }
+
+        @Override
+        public void run() {
+            consumer.accept(responseManager());
+        }
+    }
+
+    private static final class ConsumerResponseTrigger extends ResponseTrigger {
+
+        private final Consumer<ResponseManager> consumer;
+
+        private ConsumerResponseTrigger(Consumer<ResponseManager> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public ConsumerResponseTrigger copy() {
+            return new ConsumerResponseTrigger(consumer);
+        }
+
+        @Override
+        public void run() {
+            consumer.accept(responseManager());
+        }
+    }
 }
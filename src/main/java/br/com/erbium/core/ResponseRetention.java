@@ -0,0 +1,208 @@
+package br.com.erbium.core;
+
+import lombok.NonNull;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+
+/**
+ * Workspace-scoped memory budget for the response histories of all endpoints.
+ * <p>
+ * Every stored response is accounted for by the size in bytes of the body it keeps in memory; responses
+ * without a body in memory are not tracked. When storing a response would exceed
+ * the budget, the oldest responses of the workspace, whatever their endpoint, are evicted first: they stay
+ * in their history with their status, headers and timings, but release their body, parsed document and
+ * OkHttp request, response body and handshake (see {@link ErbiumResponse#evicted()}). The most recent
+ * response is never evicted when it is stored, so response triggers can always read it.
+ * <p>
+ * If a spill directory is set, evicted bodies are written to a {@link ResponseArchive} and
+ * {@link ErbiumResponse#body()} reads them back transparently. Otherwise they are discarded.
+ * <p>
+ * Responses are held weakly: the responses of a dropped fork are released once it is garbage collected,
+ * instead of being kept until they are evicted.
+ * <p>
+ * The budget is unlimited by default, in which case nothing is tracked. It applies to responses stored
+ * after it is set. The retention is owned by a {@link Workspace} and closed with it.
+ */
+public class ResponseRetention implements AutoCloseable {
+
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    private long budgetBytes = UNLIMITED;
+    private Path spillDirectory;
+    private ResponseArchive archive;
+
+    // Retained responses from the oldest, with the size they are accounted for
+    private final Set<Retained> retained = new LinkedHashSet<>();
+    private final Map<ErbiumResponse, Retained> retainedByResponse = new WeakHashMap<>();
+    private final ReferenceQueue<ErbiumResponse> collected = new ReferenceQueue<>();
+    private long retainedBytes;
+
+    private static final class Retained extends WeakReference<ErbiumResponse> {
+        final long size;
+
+        Retained(ErbiumResponse response, long size, ReferenceQueue<ErbiumResponse> queue) {
+            super(response, queue);
+            this.size = size;
+        }
+    }
+    private long evictions;
+
+    /**
+     * @param budgetBytes The maximum body size kept in memory across all response histories,
+     *                    or {@link #UNLIMITED}.
+     * @return This {@link ResponseRetention} instance for fluent chaining.
+     */
+    public synchronized ResponseRetention budgetBytes(long budgetBytes) {
+        if (budgetBytes <= 0) {
+            throw new IllegalArgumentException("Budget must be greater than 0");
+        }
+        this.budgetBytes = budgetBytes;
+        if (budgetBytes == UNLIMITED) {
+            clear();
+        }
+        return this;
+    }
+
+    public synchronized long budgetBytes() {
+        return budgetBytes;
+    }
+
+    /**
+     * @param spillDirectory Where evicted bodies are archived, or null to discard them.
+     * @return This {@link ResponseRetention} instance for fluent chaining.
+     */
+    public synchronized ResponseRetention spillDirectory(Path spillDirectory) {
+        this.spillDirectory = spillDirectory;
+        return this;
+    }
+
+    public synchronized Path spillDirectory() {
+        return spillDirectory;
+    }
+
+    /**
+     * Accounts for a response that has just been stored, evicting the oldest ones to stay within the budget.
+     */
+    synchronized void retain(@NonNull ErbiumResponse response) {
+        if (budgetBytes == UNLIMITED) {
+            return;
+        }
+        long size = response.retainedSize();
+        if (size == 0) {
+            return;
+        }
+        releaseCollected();
+        Iterator<Retained> oldest = retained.iterator();
+        while (retainedBytes + size > budgetBytes && oldest.hasNext()) {
+            Retained entry = oldest.next();
+            oldest.remove();
+            retainedBytes -= entry.size;
+            ErbiumResponse evicted = entry.get();
+            if (evicted != null) {
+                retainedByResponse.remove(evicted);
+                evicted.evict(archive());
+                evictions++;
+            }
+        }
+        Retained entry = new Retained(response, size, collected);
+        retained.add(entry);
+        retainedByResponse.put(response, entry);
+        retainedBytes += size;
+    }
+
+    /**
+     * Stops accounting for a response that has left its history.
+     */
+    synchronized void release(@NonNull ErbiumResponse response) {
+        Retained entry = retainedByResponse.remove(response);
+        if (entry != null && retained.remove(entry)) {
+            retainedBytes -= entry.size;
+        }
+    }
+
+    /**
+     * Stops accounting for the responses that were garbage collected, e.g. with a dropped fork.
+     */
+    private void releaseCollected() {
+        Reference<? extends ErbiumResponse> reference;
+        while ((reference = collected.poll()) != null) {
+            Retained entry = (Retained) reference;
+            if (retained.remove(entry)) {
+                retainedBytes -= entry.size;
+            }
+        }
+    }
+
+    private void clear() {
+        retained.clear();
+        retainedByResponse.clear();
+        while (collected.poll() != null) {
+            // entries already dropped
+        }
+        retainedBytes = 0;
+    }
+
+    private ResponseArchive archive() {
+        if (spillDirectory == null) {
+            return null;
+        }
+        if (archive == null) {
+            archive = new ResponseArchive(spillDirectory);
+        }
+        return archive;
+    }
+
+    /**
+     * @return The body size currently accounted for, in bytes.
+     */
+    public synchronized long retainedBytes() {
+        releaseCollected();
+        return retainedBytes;
+    }
+
+    /**
+     * @return The number of responses evicted so far.
+     */
+    public synchronized long evictions() {
+        return evictions;
+    }
+
+    /**
+     * @return The number of bodies spilled to disk so far.
+     */
+    public synchronized int spilledBodies() {
+        return archive == null ? 0 : archive.size();
+    }
+
+    /**
+     * Deletes the spill archive. Evicted bodies can no longer be read afterwards.
+     */
+    @Override
+    public synchronized void close() {
+        if (archive != null) {
+            archive.close();
+            archive = null;
+        }
+        clear();
+    }
+}
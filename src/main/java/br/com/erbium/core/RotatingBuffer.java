@@ -1,6 +1,6 @@
 package br.com.erbium.core;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -16,33 +16,58 @@ import java.util.List;
  * under the ERBIUM name are protected trademarks.
  */
 
+/**
+ * A fixed-size history backed by a circular array. Index 0 is the most recent item, so
+ * {@link #get(int)} is constant time for any index.
+ */
 public class RotatingBuffer<T> {
 
-    private int maxSize;
-    private final LinkedList<T> buffer;
+    private final Object[] buffer;
+    private int next; // slot written by the next add
+    private int size;
 
     public RotatingBuffer(int maxSize) {
-        this.maxSize = maxSize;
-        this.buffer = new LinkedList<>();
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Size must be greater than 0");
+        }
+        this.buffer = new Object[maxSize];
     }
 
-    public void add(T item) {
-        if (buffer.size() == maxSize) {
-            buffer.removeFirst(); // remove the oldest
+    /**
+     * Adds an item, overwriting the oldest one when the buffer is full.
+     *
+     * @return The item that was overwritten, or null.
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized T add(T item) {
+        T oldest = (T) buffer[next]; // remove the oldest
+        buffer[next] = item;
+        next = (next + 1) % buffer.length;
+        if (size < buffer.length) {
+            size++;
+            return null;
         }
-        buffer.addLast(item); // add new one at the end
+        return oldest;
     }
 
-    public T get(int index) {
-        if (index < 0 || index >= buffer.size()) {
+    @SuppressWarnings("unchecked")
+    public synchronized T get(int index) {
+        if (index < 0 || index >= size) {
             throw new IndexOutOfBoundsException("Index: " + index);
         }
 
-        return buffer.get(buffer.size() - 1 - index);
+        return (T) buffer[Math.floorMod(next - 1 - index, buffer.length)];
     }
 
-    public List<T> getAll() {
-        return List.copyOf(buffer);
+    /**
+     * @return The items from the oldest to the most recent.
+     */
+    public synchronized List<T> getAll() {
+        List<T> items = new ArrayList<>(size);
+        for (int index = size - 1; index >= 0; index--) {
+            items.add(get(index));
+        }
+        return List.copyOf(items);
     }
 
     /**
@@ -50,8 +75,15 @@ public class RotatingBuffer<T> {
      *
      * @return The buffer size.
      */
-    public int size() {
-        return buffer.size();
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * @return The number of items the buffer can hold.
+     */
+    public int maxSize() {
+        return buffer.length;
     }
 
 }
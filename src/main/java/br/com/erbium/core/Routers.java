@@ -4,6 +4,7 @@ import lombok.Getter;
 
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
 
 public final class Routers {
     @Getter
@@ -31,22 +32,100 @@ public final class Routers {
         routers.remove(router);
     }
 
+    /**
+     * Wraps every registered router in an {@link AsyncReportRouter}, so that messages are written by a
+     * background thread instead of the calling thread.
+     *
+     * @param capacity       The ring buffer size of each router.
+     * @param overflowPolicy What to do when a buffer is full.
+     * @return This instance.
+     */
+    public Routers async(int capacity, AsyncReportRouter.OverflowPolicy overflowPolicy) {
+        for (ReportRouter router : routers) {
+            if (!(router instanceof AsyncReportRouter)) {
+                routers.set(routers.indexOf(router), new AsyncReportRouter(router, capacity, overflowPolicy));
+            }
+        }
+        return this;
+    }
+
+    public Routers async() {
+        return async(AsyncReportRouter.DEFAULT_CAPACITY, AsyncReportRouter.OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * Waits until asynchronous routers have written everything logged so far.
+     */
+    public void flush() {
+        for (ReportRouter router : routers) {
+            if (router instanceof AsyncReportRouter asyncRouter) {
+                asyncRouter.flush();
+            }
+        }
+    }
+
+    /**
+     * Flushes and stops asynchronous routers. Routers remain usable and write synchronously afterwards.
+     */
+    public void close() {
+        for (ReportRouter router : routers) {
+            if (router instanceof AsyncReportRouter asyncRouter) {
+                asyncRouter.close();
+            }
+        }
+    }
+
+    /**
+     * Cheap check to be done before building an expensive message.
+     *
+     * @param item The log item.
+     * @return true if messages of the given item reach at least one router.
+     */
+    public boolean isEnabled(LogItem item) {
+        return config.getDestination(item) != TargetOutput.NONE && !routers.isEmpty();
+    }
+
     public void log(LogType level, LogItem LogItem, Object message) {
         log(level, LogItem, message, null);
     }
 
     public void log(LogType level, LogItem LogItem, Object message, Integer destination) {
-
-        destination = destination == null ? config.getDestination(LogItem) : destination;
-        if (level == LogType.ERROR || level == LogType.SEVERE_WARNING) {
-            destination = TargetOutput.CONSOLE_REPORT;
+        int target = destinationOf(level, LogItem, destination);
+        if (target != TargetOutput.NONE) {
+            routeToAll(level, LogItem, String.valueOf(message), target);
         }
-        String messageStr = String.valueOf(message);
+    }
+
+    /**
+     * Logs a message that is only built if it is going to be routed somewhere.
+     *
+     * @param level   The log type.
+     * @param LogItem The log item.
+     * @param message Supplies the message. Not called when the item is disabled.
+     */
+    public void log(LogType level, LogItem LogItem, Supplier<String> message) {
+        log(level, LogItem, message, null);
+    }
 
-        if (destination != TargetOutput.NONE) {
-            routeToAll(level, LogItem, messageStr, destination);
+    public void log(LogType level, LogItem LogItem, Supplier<String> message, Integer destination) {
+        int target = destinationOf(level, LogItem, destination);
+        if (target != TargetOutput.NONE) {
+            routeToAll(level, LogItem, message.get(), target);
         }
+    }
+
+    public void log(LogItem item, Supplier<String> message) {
+        log(LogType.UDEF, item, message);
+    }
 
+    private int destinationOf(LogType level, LogItem LogItem, Integer destination) {
+        if (level == LogType.ERROR || level == LogType.SEVERE_WARNING) {
+            return TargetOutput.CONSOLE_REPORT;
+        }
+        if (routers.isEmpty()) {
+            return TargetOutput.NONE;
+        }
+        return destination == null ? config.getDestination(LogItem) : destination;
     }
 
     public void err(Object message, Throwable throwable) {
@@ -0,0 +1,345 @@
+package br.com.erbium.core;
+
+import br.com.erbium.core.base.scripts.HeadersTrigger;
+import br.com.erbium.core.scripts.triggers.builtin.BearerTokenHeadersTrigger;
+import lombok.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+
+/**
+ * Runs the endpoints of a collection concurrently, in an order that gives the same results as sending
+ * them one at a time in collection order.
+ * <p>
+ * Endpoints communicate through collection variables: the queued {@code qrset} extractions produce them and
+ * the {@code {{var}}} placeholders of the URL, parameters, headers and JSON body consume them. From these the
+ * scheduler builds a dependency graph, where an endpoint waits for:
+ * <ul>
+ *     <li>the last earlier endpoint producing a variable it consumes;</li>
+ *     <li>the earlier endpoints consuming or producing a variable it produces, so they do not see its value
+ *     and the last value stays the one of the sequential run.</li>
+ * </ul>
+ * Endpoints whose effects cannot be known in advance (queued endpoint scripts, request or response triggers,
+ * custom headers triggers or a custom submission script) are barriers: they wait for every earlier endpoint and every
+ * later endpoint waits for them.
+ * <p>
+ * Independent endpoints are submitted together with {@link Endpoint#sendAsync()}; an endpoint is released as
+ * soon as the endpoints it waits for have stored their responses and run their triggers. Requests are
+ * committed on the calling thread, in collection order among the released endpoints.
+ * Variables set by other means while the scheduler runs are not taken into account.
+ */
+public final class ScenarioScheduler {
+
+    private final List<Node> nodes;
+    private int maxConcurrency = Integer.MAX_VALUE;
+
+    private static final class Node {
+        final int index;
+        final Endpoint endpoint;
+        final Set<String> consumes;
+        final Set<String> produces;
+        final boolean barrier;
+        final Set<Node> dependencies = new LinkedHashSet<>();
+        final List<Node> dependents = new ArrayList<>();
+
+        Node(int index, Endpoint endpoint, Set<String> consumes, Set<String> produces, boolean barrier) {
+            this.index = index;
+            this.endpoint = endpoint;
+            this.consumes = consumes;
+            this.produces = produces;
+            this.barrier = barrier;
+        }
+    }
+
+    private record Completion(Node node, ErbiumResponse response, Throwable throwable) {
+    }
+
+    private ScenarioScheduler(List<Node> nodes) {
+        this.nodes = nodes;
+        link();
+    }
+
+    /**
+     * Builds the dependency graph of the collection endpoints as they are now.
+     *
+     * @param collection The collection.
+     * @return The scheduler.
+     */
+    public static ScenarioScheduler of(@NonNull Collection collection) {
+        List<Node> nodes = new ArrayList<>();
+        for (Endpoint endpoint : collection.getEndpoints()) {
+            nodes.add(nodeOf(nodes.size(), endpoint));
+        }
+        return new ScenarioScheduler(nodes);
+    }
+
+    /**
+     * @param maxConcurrency The maximum number of requests in flight at once.
+     * @return This {@link ScenarioScheduler} instance for fluent chaining.
+     */
+    public ScenarioScheduler maxConcurrency(int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Max concurrency must be greater than 0");
+        }
+        this.maxConcurrency = maxConcurrency;
+        return this;
+    }
+
+    /**
+     * @param endpointName The endpoint name, which must be unique in the schedule.
+     * @return The names of the endpoints it waits for, in collection order.
+     * @throws IllegalArgumentException if no endpoint, or more than one, has this name.
+     */
+    public List<String> dependenciesOf(@NonNull String endpointName) {
+        Node found = null;
+        for (Node node : nodes) {
+            if (node.endpoint.getName().equals(endpointName)) {
+                if (found != null) {
+                    throw new IllegalArgumentException("More than one endpoint is named '" + endpointName + "' in the schedule; use dependenciesOf(Endpoint).");
+                }
+                found = node;
+            }
+        }
+        if (found == null) {
+            throw new IllegalArgumentException("No endpoint named '" + endpointName + "' in the schedule.");
+        }
+        return namesOf(found.dependencies);
+    }
+
+    /**
+     * @param endpoint The endpoint.
+     * @return The names of the endpoints it waits for, in collection order.
+     * @throws IllegalArgumentException if the endpoint is not in the schedule.
+     */
+    public List<String> dependenciesOf(@NonNull Endpoint endpoint) {
+        for (Node node : nodes) {
+            if (node.endpoint == endpoint) {
+                return namesOf(node.dependencies);
+            }
+        }
+        throw new IllegalArgumentException("The endpoint '" + endpoint.getName() + "' is not in the schedule.");
+    }
+
+    private static List<String> namesOf(Set<Node> nodes) {
+        List<String> names = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            names.add(node.endpoint.getName());
+        }
+        return names;
+    }
+
+    /**
+     * Sends every endpoint once, running independent endpoints concurrently.
+     * <p>
+     * If a submission fails, no further endpoint is released; the requests in flight are awaited and the
+     * first failure is thrown.
+     *
+     * @return The responses by endpoint name, in collection order.
+     */
+    public Map<String, ErbiumResponse> run() {
+        Map<Node, Integer> pending = new HashMap<>();
+        Deque<Node> ready = new ArrayDeque<>();
+        for (Node node : nodes) {
+            pending.put(node, node.dependencies.size());
+            if (node.dependencies.isEmpty()) {
+                ready.add(node);
+            }
+        }
+
+        Map<Node, ErbiumResponse> responses = new HashMap<>();
+        BlockingQueue<Completion> completions = new LinkedBlockingQueue<>();
+        Throwable failure = null;
+        int inFlight = 0;
+        int done = 0;
+
+        while (done < nodes.size()) {
+            while (failure == null && !ready.isEmpty() && inFlight < maxConcurrency) {
+                Node node = ready.poll();
+                try {
+                    node.endpoint.sendAsync().whenComplete((response, throwable) ->
+                            completions.add(new Completion(node, response, throwable)));
+                    inFlight++;
+                } catch (RuntimeException e) {
+                    failure = e;
+                }
+            }
+            if (inFlight == 0) {
+                break;
+            }
+
+            Completion completion;
+            try {
+                completion = completions.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the scheduled requests.", e);
+            }
+            inFlight--;
+            done++;
+            if (completion.throwable() != null) {
+                if (failure == null) {
+                    failure = completion.throwable() instanceof CompletionException && completion.throwable().getCause() != null
+                            ? completion.throwable().getCause()
+                            : completion.throwable();
+                }
+                continue;
+            }
+            responses.put(completion.node(), completion.response());
+            // Released in collection order, as they are committed in that order
+            List<Node> released = new ArrayList<>();
+            for (Node dependent : completion.node().dependents) {
+                if (pending.merge(dependent, -1, Integer::sum) == 0) {
+                    released.add(dependent);
+                }
+            }
+            released.sort(Comparator.comparingInt(next -> next.index));
+            ready.addAll(released);
+        }
+
+        if (failure != null) {
+            throw failure instanceof RuntimeException runtimeException
+                    ? runtimeException
+                    : new RuntimeException("A scheduled request failed.", failure);
+        }
+
+        Map<String, ErbiumResponse> result = new LinkedHashMap<>();
+        for (Node node : nodes) {
+            result.put(node.endpoint.getName(), responses.get(node));
+        }
+        return result;
+    }
+
+    /**
+     * Adds the edges that keep the results of the sequential run.
+     */
+    private void link() {
+        Map<String, Node> lastProducer = new HashMap<>();
+        Map<String, List<Node>> consumersSinceProducer = new HashMap<>();
+        Node lastBarrier = null;
+
+        for (int index = 0; index < nodes.size(); index++) {
+            Node node = nodes.get(index);
+            if (node.barrier) {
+                for (int earlier = 0; earlier < index; earlier++) {
+                    dependsOn(node, nodes.get(earlier));
+                }
+                lastBarrier = node;
+            } else if (lastBarrier != null) {
+                dependsOn(node, lastBarrier);
+            }
+
+            for (String variable : node.consumes) {
+                Node producer = lastProducer.get(variable);
+                if (producer != null) {
+                    dependsOn(node, producer);
+                }
+            }
+            for (String variable : node.produces) {
+                Node producer = lastProducer.get(variable);
+                if (producer != null) {
+                    dependsOn(node, producer);
+                }
+                for (Node consumer : consumersSinceProducer.getOrDefault(variable, List.of())) {
+                    dependsOn(node, consumer);
+                }
+            }
+
+            for (String variable : node.produces) {
+                lastProducer.put(variable, node);
+                consumersSinceProducer.remove(variable);
+            }
+            for (String variable : node.consumes) {
+                if (!node.produces.contains(variable)) {
+                    consumersSinceProducer.computeIfAbsent(variable, key -> new ArrayList<>()).add(node);
+                }
+            }
+        }
+    }
+
+    private static void dependsOn(Node node, Node dependency) {
+        if (node != dependency && node.dependencies.add(dependency)) {
+            dependency.dependents.add(node);
+        }
+    }
+
+    private static Node nodeOf(int index, Endpoint endpoint) {
+        Endpoint definition = endpoint.sharesDefinition() ? endpoint.forkSource : endpoint;
+        RequestManager requestManager = definition.requestManager();
+        HeadersManager headersManager = definition.headersManager();
+
+        Set<String> consumes = new TreeSet<>();
+        consumes.addAll(variablesOf(RequestManager.buildUrlWithParams(requestManager.url(), requestManager.params)));
+        if (requestManager.host != null) {
+            consumes.addAll(variablesOf(requestManager.host));
+        }
+        for (Header header : headersManager.headers().headers()) {
+            consumes.addAll(variablesOf(header.getKey()));
+            if (header.getValue() != null) {
+                consumes.addAll(variablesOf(header.getValue().toString()));
+            }
+        }
+        if (requestManager.jsonRequest() != null) {
+            consumes.addAll(requestManager.jsonRequest().bodyVariableNames());
+        }
+
+        Set<String> produces = new TreeSet<>(endpoint.responseManager().qrsetMap().keySet());
+
+        boolean barrier = !endpoint.queuedEndpointScripts().isEmpty()
+                || !definition.queuedEndpointScripts().isEmpty()
+                || !requestManager.queuedRequestTriggers().isEmpty()
+                || !endpoint.responseManager().queuedResponseTriggers().isEmpty()
+                || requestManager.submissionScriptFactory() != null;
+        for (HeadersTrigger trigger : headersManager.queuedHeaderTriggers().values()) {
+            barrier |= !(trigger instanceof BearerTokenHeadersTrigger);
+        }
+        return new Node(index, endpoint, Collections.unmodifiableSet(consumes), Collections.unmodifiableSet(produces), barrier);
+    }
+
+    private static List<String> variablesOf(String text) {
+        return text == null ? List.of() : VariableTemplate.compile(text).variableNames();
+    }
+
+    /**
+     * @return One line per endpoint with what it consumes, produces and waits for.
+     */
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Node node : nodes) {
+            builder.append(node.endpoint.getName());
+            if (node.barrier) {
+                builder.append(" [barrier]");
+            }
+            builder.append(" consumes ").append(node.consumes)
+                    .append(" produces ").append(node.produces)
+                    .append(" waits for ").append(namesOf(node.dependencies))
+                    .append('\n');
+        }
+        return builder.toString();
+    }
+}
@@ -18,6 +18,14 @@ import lombok.NonNull;
 import lombok.Setter;
 import lombok.experimental.Accessors;
 
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 /**
@@ -38,6 +46,8 @@ import java.util.function.Consumer;
  */
 public class TestRunner {
     private int maxIterations = 1;
+    private int parallelism = 1;
+    private boolean virtualThreads = false;
     @Getter @Setter
     @Accessors(fluent = true)
     private Workspace workspace;
@@ -46,6 +56,9 @@ public class TestRunner {
     private String testName = "Unnamed Test";
     private Consumer<DefaultTestIteratorContext> testStep;
 
+    private final Map<Integer, Throwable> failures = new ConcurrentSkipListMap<>();
+    private final AtomicInteger passedIterations = new AtomicInteger();
+
 
     /**
      * Sets the number of iterations for the test run.
@@ -58,6 +71,49 @@ public class TestRunner {
         return this;
     }
 
+    /**
+     * Runs up to {@code parallelism} iterations at the same time on a fixed pool of platform threads.
+     * Combined with {@link #withVirtualThreads()}, it caps the number of concurrent virtual threads instead.
+     *
+     * @param parallelism The maximum number of concurrent iterations.
+     * @return This TestRunner instance for chaining.
+     */
+    public TestRunner withParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be greater than 0");
+        }
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Runs every iteration on its own virtual thread. Suited to iterations that mostly wait on the network.
+     *
+     * @return This TestRunner instance for chaining.
+     */
+    public TestRunner withVirtualThreads() {
+        this.virtualThreads = true;
+        return this;
+    }
+
+    /**
+     * Returns the failures of the last run, keyed and ordered by iteration number.
+     *
+     * @return The failed iterations and their errors.
+     */
+    public Map<Integer, Throwable> getFailures() {
+        return Collections.unmodifiableSortedMap(new TreeMap<>(failures));
+    }
+
+    /**
+     * Returns the number of iterations that completed without errors in the last run.
+     *
+     * @return The number of passed iterations.
+     */
+    public int getPassedIterations() {
+        return passedIterations.get();
+    }
+
     /**
      * Executes the provided test step for the configured number of iterations.
      *
@@ -75,18 +131,90 @@ public class TestRunner {
      * <p>
      * This method is called internally by {@link #execute(Consumer)}. It ensures that each test iteration
      * has its own context and that the workspace is updated accordingly. After each iteration, the context is cleared.
+     * <p>
+     * Sequential runs stop at the first failure. Concurrent runs (see {@link #withParallelism(int)} and
+     * {@link #withVirtualThreads()}) finish every iteration and then fail with an aggregated error.
      *
-     * Related: {@link #withIterations(Integer)}, {@link #execute(Consumer)}
+     * Related: {@link #withIterations(Integer)}, {@link #withParallelism(int)}, {@link #execute(Consumer)}
      */
     private void run() {
-        for (int i = 1; i <= maxIterations; i++) {
-            DefaultTestIteratorContext context = new DefaultTestIteratorContext(i);
-            try {
-                context.workspace(workspace);
-                testStep.accept(context);
-            } finally {
-                context.clear();
+        failures.clear();
+        passedIterations.set(0);
+
+        if (!isConcurrent()) {
+            for (int i = 1; i <= maxIterations; i++) {
+                runIteration(i);
+                passedIterations.incrementAndGet();
             }
+            return;
+        }
+
+        runConcurrently();
+        if (!failures.isEmpty()) {
+            Map.Entry<Integer, Throwable> first = failures.entrySet().iterator().next();
+            RuntimeException failure = new RuntimeException(failures.size() + " of " + maxIterations
+                    + " iterations of '" + testName + "' failed. First failure in iteration " + first.getKey() + ".",
+                    first.getValue());
+            failures.values().stream().skip(1).forEach(failure::addSuppressed);
+            throw failure;
+        }
+    }
+
+    private boolean isConcurrent() {
+        return virtualThreads || parallelism > 1;
+    }
+
+    /**
+     * Runs all iterations concurrently and records their outcome instead of stopping at the first failure.
+     * Each iteration still gets its own {@link DefaultTestIteratorContext}.
+     * <p>
+     * If the calling thread is interrupted while waiting for a permit, no further iteration is scheduled,
+     * the running ones are interrupted and the run fails, keeping the interrupt status.
+     */
+    private void runConcurrently() {
+        Semaphore permits = virtualThreads && parallelism > 1 ? new Semaphore(parallelism) : null;
+        int scheduled = 0;
+        try (ExecutorService executor = virtualThreads
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(parallelism)) {
+            for (int i = 1; i <= maxIterations; i++) {
+                if (permits != null) {
+                    try {
+                        permits.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+                int iteration = i;
+                executor.submit(() -> {
+                    try {
+                        runIteration(iteration);
+                        passedIterations.incrementAndGet();
+                    } catch (Throwable t) {
+                        failures.put(iteration, t);
+                    } finally {
+                        if (permits != null) {
+                            permits.release();
+                        }
+                    }
+                });
+                scheduled++;
+            }
+        }
+        if (scheduled < maxIterations) {
+            throw new IllegalStateException("Interrupted while running '" + testName + "': only " + scheduled
+                    + " of " + maxIterations + " iterations were scheduled.");
+        }
+    }
+
+    private void runIteration(int iteration) {
+        DefaultTestIteratorContext context = new DefaultTestIteratorContext(iteration);
+        try {
+            context.workspace(workspace);
+            testStep.accept(context);
+        } finally {
+            context.clear();
         }
     }
 
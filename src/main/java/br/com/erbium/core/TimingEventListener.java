@@ -0,0 +1,126 @@
+package br.com.erbium.core;
+
+import okhttp3.Call;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+
+/**
+ * Records OkHttp call events into the {@link RequestTimings} tagged on the request.
+ * Calls without a {@link RequestTimings} tag are not instrumented.
+ */
+class TimingEventListener extends EventListener {
+
+    static final EventListener.Factory FACTORY = call -> {
+        RequestTimings timings = call.request().tag(RequestTimings.class);
+        return timings == null ? EventListener.NONE : new TimingEventListener(timings);
+    };
+
+    private final RequestTimings timings;
+
+    TimingEventListener(RequestTimings timings) {
+        this.timings = timings;
+    }
+
+    @Override
+    public void callStart(Call call) {
+        timings.callStart();
+    }
+
+    @Override
+    public void dnsStart(Call call, String domainName) {
+        timings.dnsStart();
+    }
+
+    @Override
+    public void dnsEnd(Call call, String domainName, List<InetAddress> inetAddressList) {
+        timings.dnsEnd();
+    }
+
+    @Override
+    public void connectStart(Call call, InetSocketAddress inetSocketAddress, Proxy proxy) {
+        timings.connectStart();
+    }
+
+    @Override
+    public void secureConnectStart(Call call) {
+        timings.secureConnectStart();
+    }
+
+    @Override
+    public void secureConnectEnd(Call call, Handshake handshake) {
+        timings.secureConnectEnd();
+    }
+
+    @Override
+    public void connectEnd(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol) {
+        timings.connectEnd();
+    }
+
+    @Override
+    public void connectFailed(Call call, InetSocketAddress inetSocketAddress, Proxy proxy, Protocol protocol, IOException ioe) {
+        timings.connectEnd();
+    }
+
+    @Override
+    public void requestHeadersStart(Call call) {
+        timings.requestStart();
+    }
+
+    @Override
+    public void requestHeadersEnd(Call call, Request request) {
+        // Requests without a body end here; requestBodyEnd overrides it otherwise
+        if (request.body() == null) {
+            timings.requestEnd();
+        }
+    }
+
+    @Override
+    public void requestBodyEnd(Call call, long byteCount) {
+        timings.requestEnd();
+    }
+
+    @Override
+    public void responseHeadersStart(Call call) {
+        timings.responseHeadersStart();
+    }
+
+    @Override
+    public void responseBodyStart(Call call) {
+        timings.responseBodyStart();
+    }
+
+    @Override
+    public void responseBodyEnd(Call call, long byteCount) {
+        timings.responseBodyEnd();
+    }
+
+    @Override
+    public void callEnd(Call call) {
+        timings.callEnd();
+    }
+
+    @Override
+    public void callFailed(Call call, IOException ioe) {
+        timings.callEnd();
+    }
+}
@@ -0,0 +1,329 @@
+package br.com.erbium.core;
+
+import lombok.NonNull;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+
+/**
+ * Workspace-scoped cache of authentication tokens, keyed by credential set.
+ * <p>
+ * A token is fetched from its {@link TokenSource} the first time it is requested and shared by every
+ * endpoint, fork and thread asking for the same credentials. Fetches are single-flight: while a token is
+ * being fetched, concurrent requesters wait for that fetch instead of starting their own.
+ * <p>
+ * Tokens with a known expiry are refreshed in the background {@link #refreshAhead(Duration) ahead} of it,
+ * so requesters keep using the current token and never wait for a refresh. A token requested within the
+ * refresh window also starts a refresh, without waiting for it. Only a missing or expired token blocks.
+ * <p>
+ * Background refreshes are bounded: a token is only refreshed if it was requested since it was last
+ * fetched, so the tokens of credentials no longer in use expire instead of being refreshed forever.
+ * Background fetches run on their own daemon threads, at most one per credential set, so a slow login
+ * does not delay the refresh of other credentials.
+ * <p>
+ * The manager is owned by a {@link Workspace} and closed with it. See
+ * {@link br.com.erbium.core.scripts.triggers.builtin.BearerTokenHeadersTrigger} to send the tokens as headers.
+ */
+public class TokenManager implements AutoCloseable {
+
+    public static final Duration DEFAULT_REFRESH_AHEAD = Duration.ofSeconds(30);
+
+    /**
+     * An authentication token.
+     *
+     * @param value     The token.
+     * @param expiresAt When the token expires, or null if it does not.
+     */
+    public record Token(@NonNull String value, Instant expiresAt) {
+
+        /**
+         * @param value     The token.
+         * @param expiresIn The token lifetime from now, as usually returned by OAuth token endpoints.
+         * @return The token.
+         */
+        public static Token expiringIn(@NonNull String value, @NonNull Duration expiresIn) {
+            return new Token(value, Instant.now().plus(expiresIn));
+        }
+
+        boolean isExpired(Instant now) {
+            return expiresAt != null && !now.isBefore(expiresAt);
+        }
+    }
+
+    /**
+     * Fetches a new token for a credential set, e.g. by sending a login endpoint.
+     */
+    @FunctionalInterface
+    public interface TokenSource {
+        Token fetch() throws Exception;
+    }
+
+    /**
+     * Returns a source sending a login endpoint and reading the token from its JSON response.
+     * Each fetch sends a fork of the endpoint, so concurrent fetches for other credentials do not interfere.
+     *
+     * @param login         The login endpoint.
+     * @param tokenPath     The JsonPath of the token in the response, e.g. {@code $.access_token}.
+     * @param expiresInPath The JsonPath of the token lifetime in seconds, e.g. {@code $.expires_in},
+     *                      or null if the token does not expire.
+     * @return The token source.
+     */
+    public static TokenSource fromEndpoint(@NonNull Endpoint login, @NonNull String tokenPath, String expiresInPath) {
+        return () -> {
+            Endpoint fork = login.fork();
+            fork.send();
+            ErbiumResponse response = fork.getResponseManager().getLastResponse();
+            if (response == null || response.code() < 200 || response.code() >= 300) {
+                throw new IllegalStateException("Login endpoint '" + login.getName() + "' returned "
+                        + (response == null ? "no response" : "status " + response.code()));
+            }
+            Object value = response.jsonPath(tokenPath);
+            if (value == null) {
+                throw new IllegalStateException("No token at " + tokenPath + " in the response of '" + login.getName() + "'");
+            }
+            if (expiresInPath == null) {
+                return new Token(value.toString(), null);
+            }
+            Object expiresIn = response.jsonPath(expiresInPath);
+            if (expiresIn == null) {
+                return new Token(value.toString(), null);
+            }
+            long seconds = expiresIn instanceof Number number ? number.longValue() : Long.parseLong(expiresIn.toString().trim());
+            return Token.expiringIn(value.toString(), Duration.ofSeconds(seconds));
+        };
+    }
+
+    private static final class Entry {
+        final TokenSource source;
+        volatile Token token;
+        // requested since the last fetch started: only then is the token refreshed ahead of its expiry
+        volatile boolean used;
+        CompletableFuture<Token> inFlight;
+        ScheduledFuture<?> scheduledRefresh;
+
+        Entry(TokenSource source) {
+            this.source = source;
+        }
+    }
+
+    private final Map<Object, Entry> entries = new ConcurrentHashMap<>();
+    private final LongAdder fetches = new LongAdder();
+    private volatile Duration refreshAhead = DEFAULT_REFRESH_AHEAD;
+    private ScheduledExecutorService scheduler;
+    private ExecutorService fetcher;
+    private volatile boolean closed;
+
+    /**
+     * @param refreshAhead How long before its expiry a token is refreshed.
+     * @return This {@link TokenManager} instance for fluent chaining.
+     */
+    public TokenManager refreshAhead(@NonNull Duration refreshAhead) {
+        if (refreshAhead.isNegative()) {
+            throw new IllegalArgumentException("Refresh ahead must not be negative");
+        }
+        this.refreshAhead = refreshAhead;
+        return this;
+    }
+
+    public Duration refreshAhead() {
+        return refreshAhead;
+    }
+
+    /**
+     * Returns a valid token for the credentials, fetching it if needed.
+     *
+     * @param credentials Identifies the credential set, e.g. a client id or a user name; compared with equals.
+     * @param source      Fetches a token for these credentials. Only the source given with the first request
+     *                    of a credential set is used.
+     * @return The token.
+     * @throws IllegalStateException if the token could not be fetched.
+     */
+    public Token token(@NonNull Object credentials, @NonNull TokenSource source) {
+        if (closed) {
+            throw new IllegalStateException("The token manager is closed.");
+        }
+        Entry entry = entries.computeIfAbsent(credentials, key -> new Entry(source));
+        entry.used = true;
+        Token token = entry.token;
+        Instant now = Instant.now();
+        if (token != null && !token.isExpired(now)) {
+            if (token.expiresAt() != null && !now.isBefore(token.expiresAt().minus(refreshAhead))) {
+                refresh(entry, true);
+            }
+            return token;
+        }
+        try {
+            return refresh(entry, false).join();
+        } catch (CompletionException e) {
+            throw new IllegalStateException("Could not fetch a token for " + credentials, e.getCause());
+        }
+    }
+
+    /**
+     * Drops the token of the credentials, so the next request fetches a new one, e.g. after a 401 response.
+     */
+    public void invalidate(@NonNull Object credentials) {
+        Entry entry = entries.get(credentials);
+        if (entry != null) {
+            synchronized (entry) {
+                entry.token = null;
+                cancelScheduledRefresh(entry);
+            }
+        }
+    }
+
+    /**
+     * @return The number of tokens fetched so far.
+     */
+    public long fetches() {
+        return fetches.sum();
+    }
+
+    /**
+     * Starts a fetch unless one is already in flight for the entry. A blocking requester fetches the token
+     * on its own thread; refreshes ahead of expiry are fetched in the background, off the scheduler thread.
+     */
+    private CompletableFuture<Token> refresh(Entry entry, boolean background) {
+        CompletableFuture<Token> fetch;
+        synchronized (entry) {
+            if (entry.inFlight != null) {
+                return entry.inFlight;
+            }
+            fetch = new CompletableFuture<>();
+            entry.inFlight = fetch;
+            entry.used = false;
+        }
+        Runnable leader = () -> {
+            Token token = null;
+            Throwable failure = null;
+            try {
+                token = entry.source.fetch();
+                if (token == null) {
+                    throw new IllegalStateException("The token source returned no token.");
+                }
+                fetches.increment();
+            } catch (Throwable e) {
+                failure = e;
+            }
+            synchronized (entry) {
+                entry.inFlight = null;
+                if (failure == null) {
+                    entry.token = token;
+                    scheduleRefresh(entry, token);
+                }
+            }
+            if (failure == null) {
+                fetch.complete(token);
+            } else {
+                fetch.completeExceptionally(failure);
+            }
+        };
+        if (background) {
+            try {
+                fetcher().execute(leader);
+            } catch (IllegalStateException | RejectedExecutionException e) {
+                // closed meanwhile
+                synchronized (entry) {
+                    entry.inFlight = null;
+                }
+                fetch.completeExceptionally(e);
+            }
+        } else {
+            leader.run();
+        }
+        return fetch;
+    }
+
+    private void scheduleRefresh(Entry entry, Token token) {
+        cancelScheduledRefresh(entry);
+        if (token.expiresAt() == null || closed) {
+            return;
+        }
+        long delay = Duration.between(Instant.now(), token.expiresAt().minus(refreshAhead)).toMillis();
+        try {
+            entry.scheduledRefresh = scheduler().schedule(() -> {
+                // tokens not requested since they were fetched are left to expire
+                if (entry.used && !closed) {
+                    refresh(entry, true);
+                }
+            }, Math.max(delay, 0), TimeUnit.MILLISECONDS);
+        } catch (IllegalStateException | RejectedExecutionException e) {
+            // closed meanwhile: the token is used until it expires
+        }
+    }
+
+    private static void cancelScheduledRefresh(Entry entry) {
+        if (entry.scheduledRefresh != null) {
+            entry.scheduledRefresh.cancel(false);
+            entry.scheduledRefresh = null;
+        }
+    }
+
+    private synchronized ScheduledExecutorService scheduler() {
+        if (closed) {
+            throw new IllegalStateException("The token manager is closed.");
+        }
+        if (scheduler == null) {
+            scheduler = Executors.newScheduledThreadPool(1, runnable -> {
+                Thread thread = new Thread(runnable, "erbium-token-refresh");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return scheduler;
+    }
+
+    private synchronized ExecutorService fetcher() {
+        if (closed) {
+            throw new IllegalStateException("The token manager is closed.");
+        }
+        if (fetcher == null) {
+            fetcher = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "erbium-token-fetch");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return fetcher;
+    }
+
+    /**
+     * Stops the background refreshes and drops every token.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+        if (fetcher != null) {
+            fetcher.shutdownNow();
+            fetcher = null;
+        }
+        entries.clear();
+    }
+}
@@ -21,6 +21,7 @@ import lombok.Setter;
 import lombok.experimental.Accessors;
 
 import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -121,6 +122,26 @@ public class UrlEncoded implements ISubmission {
         return parentRequestManager().send();
     }
 
+    @Override
+    /**
+     * Submits the form data asynchronously using the parent request manager.
+     *
+     * @return A future completed with the response.
+     */
+    public CompletableFuture<ErbiumResponse> submitAsync() {
+        return parentRequestManager().submitAsync();
+    }
+
+    @Override
+    /**
+     * Sends the form data asynchronously using the parent request manager.
+     *
+     * @return A future completed with the response.
+     */
+    public CompletableFuture<ErbiumResponse> sendAsync() {
+        return parentRequestManager().sendAsync();
+    }
+
     @Override
     /**
      * Sends a POST request with the form data using the parent request manager.
@@ -198,7 +219,7 @@ public class UrlEncoded implements ISubmission {
      * @return The CollectionEnvironment instance.
      */
     CollectionEnvironment environment() {
-        return parentRequestManager().parentEndpoint().parentCollection().collectionEnvironment();
+        return parentRequestManager().parentEndpoint().environment();
     }
 
     //@Override
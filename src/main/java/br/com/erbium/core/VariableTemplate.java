@@ -0,0 +1,209 @@
+package br.com.erbium.core;
+
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+
+/**
+ * A source string with {@code {{variable}}} placeholders, parsed once into literal and variable segments.
+ * <p>
+ * Templates are cached per source string by {@link #compile(String)}. Rendering is a single pass over the
+ * segments into a reusable per-thread builder, so its cost depends on the input length only and not on
+ * the number of variables in the environment.
+ * <p>
+ * Placeholders whose variable is not defined are left untouched, exactly like
+ * {@link BaseEnvironment#replaceVars(String)}.
+ */
+public final class VariableTemplate {
+
+    /**
+     * Returned by a {@link Resolver} when a variable is not defined.
+     */
+    public static final Object MISSING = new Object();
+
+    private static final int MAX_CACHED_TEMPLATES = 4096;
+    private static final int MAX_CACHED_SOURCE_LENGTH = 64 * 1024;
+    private static final int MAX_RETAINED_BUILDER_CAPACITY = 1024 * 1024;
+
+    private static final Map<String, VariableTemplate> CACHE = new ConcurrentHashMap<>();
+    private static final ThreadLocal<StringBuilder> BUILDER = ThreadLocal.withInitial(() -> new StringBuilder(256));
+
+    private final String source;
+    // literals.length == names.length + 1; literal i precedes variable i
+    private final String[] literals;
+    private final String[] names;
+    private final String[] placeholders;
+
+    /**
+     * Looks up variable values while rendering.
+     */
+    @FunctionalInterface
+    public interface Resolver {
+        /**
+         * @param name The variable name, without braces.
+         * @return The value (possibly null), or {@link VariableTemplate#MISSING} if the variable is not defined.
+         */
+        Object resolve(String name);
+    }
+
+    private VariableTemplate(String source, String[] literals, String[] names, String[] placeholders) {
+        this.source = source;
+        this.literals = literals;
+        this.names = names;
+        this.placeholders = placeholders;
+    }
+
+    /**
+     * Returns the compiled template for the given source, parsing it on first use.
+     *
+     * @param source The string containing {@code {{variable}}} placeholders.
+     * @return The compiled template.
+     */
+    public static VariableTemplate compile(@NonNull String source) {
+        VariableTemplate template = CACHE.get(source);
+        if (template != null) {
+            return template;
+        }
+        template = parse(source);
+        if (source.length() <= MAX_CACHED_SOURCE_LENGTH) {
+            if (CACHE.size() >= MAX_CACHED_TEMPLATES) {
+                CACHE.clear();
+            }
+            CACHE.putIfAbsent(source, template);
+        }
+        return template;
+    }
+
+    private static VariableTemplate parse(String source) {
+        List<String> literals = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<String> placeholders = new ArrayList<>();
+
+        int position = 0;
+        int open;
+        while ((open = source.indexOf("{{", position)) >= 0) {
+            int close = source.indexOf("}}", open + 2);
+            if (close < 0) {
+                break;
+            }
+            // "{{{name}}}" keeps the outer braces as literals
+            while (open + 2 < close && source.charAt(open + 2) == '{') {
+                open++;
+            }
+            literals.add(source.substring(position, open));
+            names.add(source.substring(open + 2, close));
+            placeholders.add(source.substring(open, close + 2));
+            position = close + 2;
+        }
+        literals.add(source.substring(position));
+
+        return new VariableTemplate(
+                source,
+                literals.toArray(new String[0]),
+                names.toArray(new String[0]),
+                placeholders.toArray(new String[0])
+        );
+    }
+
+    /**
+     * @return true if the source contains at least one placeholder.
+     */
+    public boolean hasVariables() {
+        return names.length > 0;
+    }
+
+    /**
+     * @return The names of the variables referenced by this template, in order of appearance.
+     */
+    public List<String> variableNames() {
+        return List.of(names);
+    }
+
+    public String source() {
+        return source;
+    }
+
+    String literal(int index) {
+        return literals[index];
+    }
+
+    String name(int index) {
+        return names[index];
+    }
+
+    String placeholder(int index) {
+        return placeholders[index];
+    }
+
+    /**
+     * Renders the template against a variable map.
+     *
+     * @param variables The variables.
+     * @param nullValue The text written for variables whose value is null.
+     * @return The rendered string.
+     */
+    public String render(@NonNull Map<String, Object> variables, String nullValue) {
+        return render(name -> variables.getOrDefault(name, MISSING), nullValue);
+    }
+
+    /**
+     * Renders the template, resolving each placeholder through the given resolver.
+     *
+     * @param resolver  The variable lookup.
+     * @param nullValue The text written for variables whose value is null.
+     * @return The rendered string.
+     */
+    public String render(@NonNull Resolver resolver, String nullValue) {
+        if (names.length == 0) {
+            return source;
+        }
+
+        StringBuilder builder = BUILDER.get();
+        builder.setLength(0);
+        try {
+            renderTo(builder, resolver, nullValue);
+            return builder.toString();
+        } finally {
+            if (builder.capacity() > MAX_RETAINED_BUILDER_CAPACITY) {
+                BUILDER.remove();
+            }
+        }
+    }
+
+    /**
+     * Appends the rendered template to the given builder.
+     *
+     * @param builder   The target builder.
+     * @param resolver  The variable lookup.
+     * @param nullValue The text written for variables whose value is null.
+     */
+    public void renderTo(@NonNull StringBuilder builder, @NonNull Resolver resolver, String nullValue) {
+        for (int i = 0; i < names.length; i++) {
+            builder.append(literals[i]);
+            Object value = resolver.resolve(names[i]);
+            if (value == MISSING) {
+                builder.append(placeholders[i]);
+            } else if (value == null) {
+                builder.append(nullValue);
+            } else {
+                builder.append(value);
+            }
+        }
+        builder.append(literals[names.length]);
+    }
+}
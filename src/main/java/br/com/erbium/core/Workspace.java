@@ -12,10 +12,12 @@
  */
 package br.com.erbium.core;
 
+import br.com.erbium.utils.JsonPaths;
 import br.com.erbium.utils.StringUtil;
 import lombok.NonNull;
 
 import java.io.Serializable;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
@@ -42,7 +44,7 @@ import java.util.function.Consumer;
  * <p>This class is serializable and extends {@link WorkspaceProperties}, providing enhanced functionality
  * for test execution, context management, and dynamic collection registration.</p>
  */
-public class Workspace extends WorkspaceProperties implements Serializable {
+public class Workspace extends WorkspaceProperties implements Serializable, AutoCloseable {
 
     /**
      * Constructs a new {@code Workspace} instance.
@@ -272,8 +274,68 @@ public class Workspace extends WorkspaceProperties implements Serializable {
         return given(description, collectionName, script);
     }
 
+    /**
+     * Sets a workspace variable, visible to every collection that does not define its own.
+     *
+     * @param varName The variable name.
+     * @param value   The value to assign.
+     * @return This {@link Workspace} instance for fluent chaining.
+     */
+    public Workspace set(@NonNull String varName, Object value) {
+        workspaceEnvironment().set(varName, value);
+        return this;
+    }
+
+    /**
+     * Gets a workspace variable. Variables set on a collection or an endpoint are not seen here.
+     *
+     * @param varName The variable name, with or without braces.
+     * @return The value, or null if the variable is not defined.
+     */
+    public Object get(@NonNull String varName) {
+        return workspaceEnvironment().get(varName);
+    }
+
     public Workspace print(@NonNull String... messages) {
         StringUtil.print(messages);
         return this;
     }
+
+    /**
+     * Prints the latency report of every collection and endpoint submitted so far, followed by the
+     * compiled JsonPath cache statistics.
+     *
+     * @return This {@link Workspace} instance for fluent chaining.
+     */
+    public Workspace printMetrics() {
+        out().log(LogType.UDEF, LogItem.TIMER, "\n" + metrics() + JsonPaths.cacheStats());
+        return this;
+    }
+
+    /**
+     * Limits the memory held by the response histories of all endpoints. When the budget is exceeded,
+     * the oldest responses release their bodies first (see {@link ResponseRetention}).
+     *
+     * @param budgetBytes    The maximum body size kept in memory, in bytes.
+     * @param spillDirectory Where evicted bodies are archived so they can still be read, or null to discard them.
+     * @return This {@link Workspace} instance for fluent chaining.
+     */
+    public Workspace setResponseRetention(long budgetBytes, Path spillDirectory) {
+        responseRetention().budgetBytes(budgetBytes).spillDirectory(spillDirectory);
+        return this;
+    }
+
+    /**
+     * Closes this workspace, flushing asynchronous routers, releasing the shared HTTP clients
+     * and their pooled connections, deleting the response spill archive and stopping the token refreshes.
+     */
+    @Override
+    public void close() {
+        if (out() != null) {
+            out().close();
+        }
+        httpClients().shutdown();
+        responseRetention().close();
+        tokens().close();
+    }
 }
\ No newline at end of file
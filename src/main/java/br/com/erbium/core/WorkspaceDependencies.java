@@ -2,6 +2,7 @@ package br.com.erbium.core;
 
 import br.com.erbium.core.lock.ILock;
 import br.com.erbium.core.lock.LockManager;
+import br.com.erbium.core.metrics.MetricsRegistry;
 import br.com.erbium.core.enums.WorkspaceAction;
 import lombok.Getter;
 import lombok.NonNull;
@@ -29,6 +30,18 @@ public class WorkspaceDependencies extends WorkspaceIdentifiable implements ILoc
     private final LockManager<WorkspaceAction> lockManager =
             new LockManager<>(WorkspaceAction.class);
 
+    @Getter @Accessors(fluent = true)
+    private final transient HttpClientRegistry httpClients = new HttpClientRegistry();
+
+    @Getter @Accessors(fluent = true)
+    private final transient MetricsRegistry metrics = new MetricsRegistry();
+
+    @Getter @Accessors(fluent = true)
+    private final transient ResponseRetention responseRetention = new ResponseRetention();
+
+    @Getter @Accessors(fluent = true)
+    private final transient TokenManager tokens = new TokenManager();
+
     WorkspaceDependencies() {
 
     }
@@ -0,0 +1,26 @@
+package br.com.erbium.core;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+
+/**
+ * The root environment scope, shared by all collections of a {@link Workspace}.
+ * Collection environments read through to it for variables they do not define.
+ */
+public class WorkspaceEnvironment extends BaseEnvironment {
+
+    @Override
+    public Object get(String key) {
+        Object value = lookup(key.trim().replace("{{", "").replace("}}", "").trim());
+        return value == VariableTemplate.MISSING ? null : value;
+    }
+}
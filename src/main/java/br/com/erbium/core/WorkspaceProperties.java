@@ -1,5 +1,6 @@
 package br.com.erbium.core;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NonNull;
 import lombok.Setter;
@@ -30,6 +31,9 @@ public class WorkspaceProperties extends WorkspaceDependencies {
     @Getter @Accessors(fluent = true)
     protected Map<String, Collection> collections = new HashMap<>();
 
+    @Getter(AccessLevel.PACKAGE) @Accessors(fluent = true)
+    final transient WorkspaceEnvironment workspaceEnvironment = new WorkspaceEnvironment();
+
 
 
     WorkspaceProperties() {
@@ -17,8 +17,14 @@ import br.com.erbium.core.ErbiumResponse;
 import lombok.Getter;
 import lombok.experimental.Accessors;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 public abstract class ErbiumSubmissionScript extends SubmissionScript implements Runnable {
 
+    private static final ExecutorService ASYNC_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
     @Getter @Accessors(fluent = true)
     protected ErbiumResponse response;
 
@@ -28,4 +34,19 @@ public abstract class ErbiumSubmissionScript extends SubmissionScript implements
         return this.response;
     }
 
+    /**
+     * Runs the submission without blocking the caller.
+     * <p>
+     * The default implementation runs {@link #run()} on a virtual thread. Scripts backed by a
+     * non-blocking client should override this method.
+     *
+     * @return A future completed with the {@link ErbiumResponse} produced by the submission.
+     */
+    public CompletableFuture<ErbiumResponse> runAsync() {
+        return CompletableFuture.supplyAsync(() -> {
+            run();
+            return response();
+        }, ASYNC_EXECUTOR);
+    }
+
 }
@@ -1,6 +1,7 @@
 package br.com.erbium.core.base.scripts;
 
 import lombok.Getter;
+import lombok.NonNull;
 import lombok.Setter;
 import lombok.experimental.Accessors;
 
@@ -8,6 +9,9 @@ public abstract class Script implements Runnable {
     @Getter
     protected Object result;
 
+    // Created by Erbium from the class alone, so it holds no configuration a copy could miss
+    private boolean instantiatedFromClass;
+
 //    @Getter @Setter
 //    @Accessors(fluent = true)
 //    protected Throwable throwable;
@@ -17,4 +21,37 @@ public abstract class Script implements Runnable {
             return null;
         return clazz.cast(result);
     }
+
+    /**
+     * Creates a script from its class, as when a script is queued by class.
+     *
+     * @param scriptClass The script class, with an accessible no-arg constructor.
+     * @return The new script.
+     */
+    public static <T extends Script> T newInstance(@NonNull Class<T> scriptClass) throws ReflectiveOperationException {
+        T script = scriptClass.getDeclaredConstructor().newInstance();
+        ((Script) script).instantiatedFromClass = true;
+        return script;
+    }
+
+    /**
+     * Returns a new, unattached script doing the same as this one, for a forked endpoint.
+     * <p>
+     * Scripts queued by class are created again from their class. Scripts queued as instances may hold
+     * configuration, so they must override this method to be used by forks.
+     *
+     * @return The copy.
+     * @throws UnsupportedOperationException if the script cannot be copied.
+     */
+    public Script copy() {
+        if (!instantiatedFromClass) {
+            throw new UnsupportedOperationException("Script " + getClass().getName()
+                    + " cannot be copied for a forked endpoint: queue it by class or override copy().");
+        }
+        try {
+            return newInstance(getClass());
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to copy script " + getClass().getName(), e);
+        }
+    }
 }
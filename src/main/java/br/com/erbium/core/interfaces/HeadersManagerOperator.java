@@ -50,6 +50,14 @@ public interface HeadersManagerOperator {
     Headers getHeaders();
     HeadersManagerOperator setHeaders(@NonNull Headers headers);
     Headers getLiteralHeaders();
+
+    /**
+     * Replaces the environment variables in the given headers, as {@link #getLiteralHeaders()} does
+     * for the current ones.
+     *
+     * @return New headers; the given ones are not modified.
+     */
+    Headers getLiteralHeaders(@NonNull Headers headers);
     Headers setCommittedHeaders(@NonNull Headers headers);
 
     // If there's a need to explicitly get the saved headers state (even if null), include it:
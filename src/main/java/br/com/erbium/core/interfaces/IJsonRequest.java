@@ -26,8 +26,9 @@ public interface IJsonRequest {
     Collection backToCollection();
 
     /**
-     * Retrieves the DocumentContext representing the parsed JSON body.
-     * This allows direct interaction with the underlying JsonPath document.
+     * Retrieves a DocumentContext over a copy of the parsed JSON body, with its placeholders bound to the
+     * current variables.
+     * Changes to it do not reach the body; use the setters of this request instead.
      * @return The DocumentContext for the request body.
      * @throws IllegalStateException if the request context has not been set yet.
      */
@@ -69,7 +70,8 @@ public interface IJsonRequest {
     IJsonRequest setList(String jsonPath, List<Object> arrayValue);
 
     /**
-     * Sets a JSON path to a String value within the request body.
+     * Sets a JSON path to a String value within the request body. Placeholders in the value are bound
+     * when the request is sent, like those of the body.
      * @param jsonPath The JsonPath expression.
      * @param value The String value to set.
      * @return This IJsonRequest instance for chaining calls.
@@ -160,21 +162,22 @@ public interface IJsonRequest {
     IJsonRequest removeAllNulls();
 
     /**
-     * Retrieves the current state of the JSON request body as a Map
-     * (if the root of the body is a JSON object).
+     * Retrieves a copy of the current state of the JSON request body as a Map
+     * (if the root of the body is a JSON object), with its placeholders bound to the current variables.
      * @return The JSON request body as a Map, or null if the root is not a JSON object.
      */
     Map<String, Object> getBodyAsMap();
 
     /**
-     * Retrieves the current state of the JSON request body as a List
-     * (if the root of the body is a JSON array).
+     * Retrieves a copy of the current state of the JSON request body as a List
+     * (if the root of the body is a JSON array), with its placeholders bound to the current variables.
      * @return The JSON request body as a List, or null if the root is not a JSON array.
      */
     List<Object> getBodyAsList();
 
     /**
-     * Reads a value from the JSON document using a JsonPath expression.
+     * Reads a value from the JSON document using a JsonPath expression, with its placeholders bound to the
+     * current variables.
      * @param jsonPath The JsonPath expression.
      * @param <T> The expected type of the result.
      * @return The value found at the specified path, or null if not found.
@@ -182,7 +185,8 @@ public interface IJsonRequest {
     <T> T read(String jsonPath);
 
     /**
-     * Reads a value from the JSON document using a JsonPath expression and a TypeRef for complex types.
+     * Reads a value from the JSON document using a JsonPath expression and a TypeRef for complex types,
+     * with its placeholders bound to the current variables.
      * @param jsonPath The JsonPath expression.
      * @param typeRef The TypeRef for complex types (e.g., List<String>).
      * @param <T> The expected type of the result.
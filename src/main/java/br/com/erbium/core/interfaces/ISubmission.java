@@ -1,8 +1,11 @@
 package br.com.erbium.core.interfaces;
 
 import br.com.erbium.core.Collection;
+import br.com.erbium.core.ErbiumResponse;
 import br.com.erbium.core.ResponseManager;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * This interface defines the contract for submitting various types of HTTP requests.
  * It provides methods for common HTTP verbs, each returning a {@link ResponseManager}
@@ -25,6 +28,22 @@ public interface ISubmission {
      */
     Collection send();
 
+    /**
+     * Submits the request without blocking the calling thread.
+     * The returned future completes after the response has been added to the
+     * {@link ResponseManager} and the response triggers have run.
+     *
+     * @return A {@link CompletableFuture} completed with the {@link ErbiumResponse}.
+     */
+    CompletableFuture<ErbiumResponse> submitAsync();
+
+    /**
+     * Sends the request without blocking the calling thread. See {@link #submitAsync()}.
+     *
+     * @return A {@link CompletableFuture} completed with the {@link ErbiumResponse}.
+     */
+    CompletableFuture<ErbiumResponse> sendAsync();
+
     /**
      * Submits an HTTP POST request.
      *
@@ -0,0 +1,114 @@
+package br.com.erbium.core.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+
+/**
+ * Fixed-size, log-linear histogram of latencies in nanoseconds, in the spirit of HdrHistogram.
+ * <p>
+ * Values below {@value #SUB_BUCKET_COUNT} ns are counted exactly. Above that, every power of two is split
+ * into {@value #HALF_SUB_BUCKET_COUNT} linear sub-buckets, which keeps the relative error under 1.6%
+ * across the whole range. Values above {@link #HIGHEST_TRACKABLE_NANOS} (about 18 minutes) are clamped
+ * into the last bucket; the exact maximum is tracked separately by {@link LatencyRecorder}.
+ * <p>
+ * Recording is a single atomic increment, so a histogram can be shared by several threads without locking.
+ * The memory footprint is constant regardless of how many values are recorded.
+ */
+public final class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 7;
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT / 2;
+    static final int HIGHEST_EXPONENT = 40;
+    public static final long HIGHEST_TRACKABLE_NANOS = (1L << HIGHEST_EXPONENT) - 1;
+    static final int BUCKET_COUNT = indexOf(HIGHEST_TRACKABLE_NANOS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * Counts one occurrence of the given latency.
+     *
+     * @param nanos The latency in nanoseconds. Negative values are counted as zero.
+     */
+    public void record(long nanos) {
+        counts.incrementAndGet(indexOf(nanos));
+    }
+
+    /**
+     * Adds the counts of this histogram to the given array, which must have {@link #BUCKET_COUNT} elements.
+     */
+    void addTo(long[] target) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] += counts.get(i);
+        }
+    }
+
+    static int indexOf(long nanos) {
+        if (nanos < SUB_BUCKET_COUNT) {
+            return nanos < 0 ? 0 : (int) nanos;
+        }
+        if (nanos > HIGHEST_TRACKABLE_NANOS) {
+            nanos = HIGHEST_TRACKABLE_NANOS;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int shift = exponent - (SUB_BUCKET_BITS - 1);
+        int subBucket = (int) (nanos >>> shift) - HALF_SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT + (exponent - SUB_BUCKET_BITS) * HALF_SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * @return The smallest value counted into the given bucket.
+     */
+    static long lowestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int offset = index - SUB_BUCKET_COUNT;
+        int exponent = offset / HALF_SUB_BUCKET_COUNT + SUB_BUCKET_BITS;
+        int subBucket = offset % HALF_SUB_BUCKET_COUNT + HALF_SUB_BUCKET_COUNT;
+        return (long) subBucket << (exponent - (SUB_BUCKET_BITS - 1));
+    }
+
+    /**
+     * @return The value reported for the given bucket: the middle of its range.
+     */
+    static long medianValueAt(int index) {
+        long lowest = lowestValueAt(index);
+        long width = index < SUB_BUCKET_COUNT ? 1 : lowestValueAt(index + 1) - lowest;
+        return lowest + width / 2;
+    }
+
+    /**
+     * Returns the value at the given percentile of the merged bucket counts.
+     *
+     * @param counts     Merged bucket counts.
+     * @param total      The sum of all counts.
+     * @param percentile The percentile, between 0 and 100.
+     * @return The latency in nanoseconds, or 0 if nothing was recorded.
+     */
+    static long valueAtPercentile(long[] counts, long total, double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return medianValueAt(i);
+            }
+        }
+        return medianValueAt(counts.length - 1);
+    }
+}
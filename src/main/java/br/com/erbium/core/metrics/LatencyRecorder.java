@@ -0,0 +1,125 @@
+package br.com.erbium.core.metrics;
+
+import lombok.Getter;
+import lombok.experimental.Accessors;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+
+/**
+ * Lock-free latency recorder for one endpoint or collection.
+ * <p>
+ * Samples are spread over a fixed number of {@link LatencyHistogram} stripes chosen by the recording
+ * thread, so concurrent submitters rarely touch the same cache lines. The stripes are merged when a
+ * {@link LatencyReport} is taken. The number of stripes depends on the number of processors and not on the
+ * number of threads, which keeps memory bounded even when requests are sent from virtual threads.
+ */
+public final class LatencyRecorder {
+
+    private static final int STRIPES = Math.min(16, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) * 2);
+
+    @Getter @Accessors(fluent = true)
+    private final String name;
+    private final LatencyHistogram[] histograms = new LatencyHistogram[STRIPES];
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder transportErrors = new LongAdder();
+    private final LongAdder httpErrors = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator firstStart = new LongAccumulator(Math::min, Long.MAX_VALUE);
+    private final LongAccumulator lastEnd = new LongAccumulator(Math::max, Long.MIN_VALUE);
+
+    public LatencyRecorder(String name) {
+        this.name = name;
+        for (int i = 0; i < STRIPES; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Records one completed request.
+     *
+     * @param latencyNanos The request latency in nanoseconds.
+     * @param statusCode   The HTTP status code, or 0 if no response was received.
+     * @param failed       true if the request failed before a response was received.
+     */
+    public void record(long latencyNanos, int statusCode, boolean failed) {
+        long now = System.nanoTime();
+        histograms[stripe()].record(latencyNanos);
+        count.increment();
+        max.accumulate(latencyNanos);
+        firstStart.accumulate(now - latencyNanos);
+        lastEnd.accumulate(now);
+        if (failed) {
+            transportErrors.increment();
+        } else if (statusCode >= 400) {
+            httpErrors.increment();
+        }
+    }
+
+    private static int stripe() {
+        long id = Thread.currentThread().threadId();
+        return (int) (id ^ (id >>> 16)) & (STRIPES - 1);
+    }
+
+    /**
+     * Merges the stripes into a point-in-time report. Samples recorded while the report is taken may or
+     * may not be included.
+     *
+     * @return The {@link LatencyReport}.
+     */
+    public LatencyReport report() {
+        long[] merged = new long[LatencyHistogram.BUCKET_COUNT];
+        for (LatencyHistogram histogram : histograms) {
+            histogram.addTo(merged);
+        }
+        long total = 0;
+        for (long bucket : merged) {
+            total += bucket;
+        }
+
+        double throughput = 0;
+        long elapsed = lastEnd.get() - firstStart.get();
+        if (total > 0 && elapsed > 0) {
+            throughput = total / (elapsed / 1_000_000_000.0);
+        }
+
+        long highest = total == 0 ? 0 : max.get();
+        return new LatencyReport(
+                name,
+                total,
+                transportErrors.sum(),
+                httpErrors.sum(),
+                percentile(merged, total, 50, highest),
+                percentile(merged, total, 90, highest),
+                percentile(merged, total, 99, highest),
+                percentile(merged, total, 99.9, highest),
+                highest,
+                throughput
+        );
+    }
+
+    private static long percentile(long[] merged, long total, double percentile, long highest) {
+        // bucket midpoints can overshoot the exact maximum
+        return Math.min(LatencyHistogram.valueAtPercentile(merged, total, percentile), highest);
+    }
+
+    /**
+     * @return The number of samples recorded so far.
+     */
+    public long count() {
+        return count.sum();
+    }
+}
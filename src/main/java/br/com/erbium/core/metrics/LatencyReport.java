@@ -0,0 +1,62 @@
+package br.com.erbium.core.metrics;
+
+import java.util.Locale;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+
+/**
+ * Point-in-time latency summary of an endpoint or collection. Latencies are in nanoseconds.
+ *
+ * @param name            The endpoint ("collection/endpoint") or collection name.
+ * @param count           The number of recorded requests.
+ * @param transportErrors Requests that failed without a response.
+ * @param httpErrors      Requests answered with a status code of 400 or above.
+ * @param p50             Median latency.
+ * @param p90             90th percentile latency.
+ * @param p99             99th percentile latency.
+ * @param p999            99.9th percentile latency.
+ * @param max             Highest recorded latency.
+ * @param throughput      Requests per second between the first request start and the last request end.
+ */
+public record LatencyReport(String name,
+                            long count,
+                            long transportErrors,
+                            long httpErrors,
+                            long p50,
+                            long p90,
+                            long p99,
+                            long p999,
+                            long max,
+                            double throughput) {
+
+    public long errors() {
+        return transportErrors + httpErrors;
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    @Override
+    public String toString() {
+        return name +
+                ": count " + count +
+                ", errors " + errors() + " (transport " + transportErrors + ", http " + httpErrors + ")" +
+                ", p50 " + millis(p50) +
+                ", p90 " + millis(p90) +
+                ", p99 " + millis(p99) +
+                ", p99.9 " + millis(p999) +
+                ", max " + millis(max) + " ms" +
+                ", " + String.format(Locale.ROOT, "%.2f", throughput) + " req/s";
+    }
+}
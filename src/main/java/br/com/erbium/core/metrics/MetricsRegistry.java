@@ -0,0 +1,114 @@
+package br.com.erbium.core.metrics;
+
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+
+/**
+ * Workspace-scoped latency metrics, kept per endpoint and per collection.
+ * <p>
+ * Every submitted request is recorded twice: once for its endpoint and once for its collection.
+ * Recorders are created on first use and have a fixed size, so memory grows with the number of
+ * endpoints and never with the number of requests.
+ */
+public class MetricsRegistry {
+
+    private final Map<String, LatencyRecorder> endpoints = new ConcurrentHashMap<>();
+    private final Map<String, LatencyRecorder> collections = new ConcurrentHashMap<>();
+
+    /**
+     * Records one completed request.
+     *
+     * @param collectionName The collection name.
+     * @param endpointName   The endpoint name.
+     * @param latencyNanos   The request latency in nanoseconds.
+     * @param statusCode     The HTTP status code, or 0 if no response was received.
+     * @param failed         true if the request failed before a response was received.
+     */
+    public void record(@NonNull String collectionName, @NonNull String endpointName,
+                       long latencyNanos, int statusCode, boolean failed) {
+        collections.computeIfAbsent(collectionName, LatencyRecorder::new)
+                .record(latencyNanos, statusCode, failed);
+        endpoints.computeIfAbsent(keyOf(collectionName, endpointName), LatencyRecorder::new)
+                .record(latencyNanos, statusCode, failed);
+    }
+
+    private static String keyOf(String collectionName, String endpointName) {
+        return collectionName + "/" + endpointName;
+    }
+
+    /**
+     * @return The report of the given endpoint, or null if nothing was recorded for it.
+     */
+    public LatencyReport endpointReport(@NonNull String collectionName, @NonNull String endpointName) {
+        LatencyRecorder recorder = endpoints.get(keyOf(collectionName, endpointName));
+        return recorder == null ? null : recorder.report();
+    }
+
+    /**
+     * @return The report of the given collection, or null if nothing was recorded for it.
+     */
+    public LatencyReport collectionReport(@NonNull String collectionName) {
+        LatencyRecorder recorder = collections.get(collectionName);
+        return recorder == null ? null : recorder.report();
+    }
+
+    /**
+     * @return The reports of all endpoints, sorted by name.
+     */
+    public List<LatencyReport> endpointReports() {
+        return reports(endpoints);
+    }
+
+    /**
+     * @return The reports of all collections, sorted by name.
+     */
+    public List<LatencyReport> collectionReports() {
+        return reports(collections);
+    }
+
+    private static List<LatencyReport> reports(Map<String, LatencyRecorder> recorders) {
+        List<LatencyReport> reports = new ArrayList<>();
+        for (LatencyRecorder recorder : recorders.values()) {
+            reports.add(recorder.report());
+        }
+        reports.sort(Comparator.comparing(LatencyReport::name));
+        return reports;
+    }
+
+    /**
+     * Discards everything recorded so far.
+     */
+    public void reset() {
+        endpoints.clear();
+        collections.clear();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (LatencyReport report : collectionReports()) {
+            builder.append(report).append('\n');
+        }
+        for (LatencyReport report : endpointReports()) {
+            builder.append("  ").append(report).append('\n');
+        }
+        return builder.toString();
+    }
+}
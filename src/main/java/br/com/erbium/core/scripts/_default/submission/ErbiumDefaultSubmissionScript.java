@@ -9,9 +9,12 @@ import okio.Buffer;
 
 import javax.net.ssl.SSLContext;
 import javax.net.ssl.TrustManager;
-import javax.net.ssl.X509TrustManager;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -30,36 +33,56 @@ public class ErbiumDefaultSubmissionScript extends ErbiumSubmissionScript {
 
     @Override
     public void run() {
+        Request request = prepareRequest();
+        OkHttpClient client = createClient(
+                committedRequestProperties.committedSslContext(),
+                committedRequestProperties.trustManager()
+        );
 
+        ErbiumResponse erbiumResponse = execute(client, request);
+        printResponse(erbiumResponse);
+        printTime(erbiumResponse);
+    }
 
-        Request.Builder requestBuilder = new Request.Builder();
-        requestBuilder = createRequestHeaders(requestBuilder);
-        requestBuilder = createRequestUrl(requestBuilder);
-        RequestBody requestBody = createRequestBody();
-
-        Request request = createRequest(requestBuilder, requestBody);
-
+    @Override
+    public CompletableFuture<ErbiumResponse> runAsync() {
+        Request request = prepareRequest();
         OkHttpClient client = createClient(
                 committedRequestProperties.committedSslContext(),
                 committedRequestProperties.trustManager()
         );
 
+        return executeAsync(client, request).thenApply(erbiumResponse -> {
+            printResponse(erbiumResponse);
+            printTime(erbiumResponse);
+            return erbiumResponse;
+        });
+    }
+
+    /**
+     * Builds the OkHttp request from the committed request properties and prints it.
+     *
+     * @return The request ready to be executed.
+     */
+    public Request prepareRequest() {
+        Request.Builder requestBuilder = new Request.Builder()
+                .tag(RequestTimings.class, new RequestTimings());
+        requestBuilder = createRequestHeaders(requestBuilder);
+        requestBuilder = createRequestUrl(requestBuilder);
+        RequestBody requestBody = createRequestBody();
+
+        Request request = createRequest(requestBuilder, requestBody);
 
         printRequestMethod(request);
         printUrl(request);
         printRequestHeaders(request);
         printRequestBody(requestBody);
-
-        ErbiumResponse erbiumResponse = execute(client, request);
-        printResponse(erbiumResponse);
-        printTime(erbiumResponse);
+        return request;
     }
 
     public ErbiumResponse execute(OkHttpClient client, Request request) {
-        ErbiumResponse erbiumResponse = null;
         Throwable throwable = null;
-        long after;
-        long before = System.currentTimeMillis();
+        long before = System.nanoTime();
 
         Response response = null;
         try {
@@ -67,12 +90,53 @@ public class ErbiumDefaultSubmissionScript extends ErbiumSubmissionScript {
         } catch (IOException e) {
             throwable = e;
         }
-        after = System.currentTimeMillis();
+        return toErbiumResponse(request, response, throwable, System.nanoTime() - before);
+    }
+
+    /**
+     * Enqueues the request on the shared dispatcher instead of blocking the calling thread.
+     *
+     * @param client  The client to execute the request with.
+     * @param request The request to execute.
+     * @return A future completed with the {@link ErbiumResponse}, including failed calls.
+     */
+    public CompletableFuture<ErbiumResponse> executeAsync(OkHttpClient client, Request request) {
+        CompletableFuture<ErbiumResponse> future = new CompletableFuture<>();
+        long before = System.nanoTime();
+
+        client.newCall(request).enqueue(new Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                complete(null, e);
+            }
+
+            @Override
+            public void onResponse(Call call, Response response) {
+                complete(response, null);
+            }
+
+            private void complete(Response response, Throwable throwable) {
+                try {
+                    future.complete(toErbiumResponse(request, response, throwable, System.nanoTime() - before));
+                } catch (RuntimeException e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        });
+        return future;
+    }
+
+    private ErbiumResponse toErbiumResponse(Request request, Response response, Throwable throwable, long elapsedNanos) {
+        ErbiumResponse erbiumResponse;
         try {
-            erbiumResponse = new ErbiumResponse(response, throwable, after - before);
+            BodyCapture capture = committedRequestProperties.committedBodyCapture();
+            erbiumResponse = new ErbiumResponse(response, throwable, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                    capture == null ? BodyCapture.full() : capture);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        // The body has been read by now, so every phase has been recorded
+        erbiumResponse.setTimings(request.tag(RequestTimings.class));
 
         setResponse(erbiumResponse);
         return erbiumResponse;
@@ -83,21 +147,15 @@ public class ErbiumDefaultSubmissionScript extends ErbiumSubmissionScript {
     }
 
     public Request.Builder createRequestHeaders(Request.Builder requestBuilder) {
-        Headers committedHeaders = committedRequestProperties.committedHeaders();
-        for (Header header : committedHeaders.headers()) {
-            requestBuilder = requestBuilder.header(header.getKey(), header.getValue().toString());
-        }
-        return requestBuilder;
+        // Built once per set of headers, see Headers.toOkHttpHeaders()
+        return requestBuilder.headers(committedRequestProperties.committedHeaders().toOkHttpHeaders());
     }
 
 
     public RequestBody createRequestBody() {
 
-        String contentType = committedRequestProperties.committedHeaders().headers().stream()
-                .filter(header -> header.getKey().equals("Content-Type"))
-                .map(header -> header.getValue().toString())
-                .findFirst()
-                .orElse(null);
+        Object contentTypeValue = committedRequestProperties.committedHeaders().getHeaderValue("Content-Type");
+        String contentType = contentTypeValue == null ? null : contentTypeValue.toString();
 
         RequestBody requestBody = null;
 
@@ -107,7 +165,17 @@ public class ErbiumDefaultSubmissionScript extends ErbiumSubmissionScript {
         }
 
         if (committedRequestProperties().requestType() == RequestType.JSON || committedRequestProperties().requestType() == RequestType.XML) {
-            requestBody = RequestBody.create(mediaType, committedRequestProperties().committedBody());
+            Charset charset = mediaType == null ? null : mediaType.charset();
+            if (charset == null || charset.equals(StandardCharsets.UTF_8)) {
+                // Compact UTF-8, encoded once at commit. Unlike the String overload, the byte[] one does not
+                // add the charset, so it is declared here as before
+                if (mediaType != null && charset == null) {
+                    mediaType = MediaType.parse(mediaType + "; charset=utf-8");
+                }
+                requestBody = RequestBody.create(committedRequestProperties().committedBodyBytes(), mediaType);
+            } else {
+                requestBody = RequestBody.create(mediaType, committedRequestProperties().committedBody());
+            }
 
         } else if (committedRequestProperties().requestType() == RequestType.URL_ENCODED) {
             LinkedHashMap<String,String> commitedUrlEncodedBody = new LinkedHashMap<>(committedRequestProperties.committedUrlEncodedBody());
@@ -150,32 +218,14 @@ public class ErbiumDefaultSubmissionScript extends ErbiumSubmissionScript {
     }
 
     public OkHttpClient createClient(SSLContext sslContext, TrustManager[] trustAllCerts) {
-        final int connectTimeout = 10;
-        final int readTimeout = 10;
-        final int writeTimeout = 30;
-        final int callTimeout = 30;
-        if (sslContext != null) {
-            return new OkHttpClient.Builder()
-                    .connectTimeout(connectTimeout, TimeUnit.SECONDS)
-                    .readTimeout(readTimeout, TimeUnit.SECONDS)
-                    .writeTimeout(writeTimeout, TimeUnit.SECONDS)
-                    .callTimeout(callTimeout, TimeUnit.SECONDS)
-                    .sslSocketFactory(sslContext.getSocketFactory(), (X509TrustManager) trustAllCerts[0])
-                    .hostnameVerifier((hostname, session) -> true)
-                    .build();
-        }
-        return new OkHttpClient.Builder()
-                .connectTimeout(connectTimeout, TimeUnit.SECONDS)
-                .readTimeout(readTimeout, TimeUnit.SECONDS)
-                .writeTimeout(writeTimeout, TimeUnit.SECONDS)
-                .callTimeout(callTimeout, TimeUnit.SECONDS)
-                .hostnameVerifier((hostname, session) -> true)
-                .build();
+        // Clients are shared per transport configuration so connections survive across submissions
+        return committedRequestProperties.endpoint().workspaceContext().httpClients()
+                .getClient(sslContext, trustAllCerts);
     }
 
     public void printRequestBody(RequestBody requestBody) {
 
-        if (requestBody == null) {
+        if (requestBody == null || !out().isEnabled(LogItem.REQUEST_BODY)) {
             return;
         }
 
@@ -196,18 +246,26 @@ public class ErbiumDefaultSubmissionScript extends ErbiumSubmissionScript {
 //            return;
 //        }
 
-        out().log("\n"+ buffer.readUtf8());
+        // The body is sent compact; it is only pretty-printed here, when it is logged
+        String body = buffer.readUtf8();
+        if (committedRequestProperties.requestType() == RequestType.JSON) {
+            body = JsonRequest.prettyPrint(body);
+        }
+        out().log(LogType.UDEF, LogItem.REQUEST_BODY, "\n" + body);
     }
 
     public void printRequestMethod(Request request) {
-        out().log(LogType.UDEF, LogItem.REQUEST_METHOD, "\n" + request.method());
+        out().log(LogType.UDEF, LogItem.REQUEST_METHOD, () -> "\n" + request.method());
     }
 
     public void printUrl(Request request) {
-        out().log(LogType.UDEF, LogItem.REQUEST_URL, request.url().url());
+        out().log(LogType.UDEF, LogItem.REQUEST_URL, () -> request.url().toString());
     }
 
     public void printRequestHeaders(Request request) {
+        if (!out().isEnabled(LogItem.REQUEST_HEADERS)) {
+            return;
+        }
         for (int i = 0; i < request.headers().size(); i++) {
             out().log(LogType.UDEF, LogItem.REQUEST_HEADERS, "\n" +
                     request.headers().name(i) + ": " + request.headers().value(i));
@@ -215,16 +273,40 @@ public class ErbiumDefaultSubmissionScript extends ErbiumSubmissionScript {
     }
 
     public void printResponse(ErbiumResponse erbiumResponse) {
-        String responseHeadersMessage = erbiumResponse.headers() == null ? "No response headers." : erbiumResponse.headers().toString();
-        String responseBodyMessage = erbiumResponse.body() == null ? "No response body" : erbiumResponse.body().toString();
-        int code = erbiumResponse.code();
+        if (!out().isEnabled(LogItem.RESPONSE_HEADERS)
+                && !out().isEnabled(LogItem.RESPONSE_BODY)
+                && !out().isEnabled(LogItem.RESPONSE_CODE)) {
+            return;
+        }
         out().log("\n\nRESPONSE");
-        out().log(LogType.UDEF, LogItem.RESPONSE_HEADERS, "\n" + responseHeadersMessage);
-        out().log(LogType.UDEF, LogItem.RESPONSE_BODY, "\n\n" + responseBodyMessage);
-        out().log(LogType.UDEF, LogItem.RESPONSE_CODE, "\n" + code);
+        out().log(LogType.UDEF, LogItem.RESPONSE_HEADERS, () -> "\n" +
+                (erbiumResponse.headers() == null ? "No response headers." : erbiumResponse.headers().toString()));
+        out().log(LogType.UDEF, LogItem.RESPONSE_BODY, () -> "\n\n" + bodyDescription(erbiumResponse));
+        out().log(LogType.UDEF, LogItem.RESPONSE_CODE, () -> "\n" + erbiumResponse.code());
+    }
+
+    private static String bodyDescription(ErbiumResponse erbiumResponse) {
+        if (erbiumResponse.bodyHash() != null) {
+            return "Response body not kept: " + erbiumResponse.bodySize() + " bytes, sha256 " + erbiumResponse.bodyHash();
+        }
+        if (erbiumResponse.bodyFile() != null) {
+            return "Response body written to " + erbiumResponse.bodyFile() + ": " + erbiumResponse.bodySize() + " bytes";
+        }
+        if (erbiumResponse.body() == null) {
+            return erbiumResponse.bodySize() > 0
+                    ? "Response body not kept: " + erbiumResponse.bodySize() + " bytes"
+                    : "No response body";
+        }
+        if (erbiumResponse.bodyTruncated()) {
+            return erbiumResponse.body() + "\n... (" + erbiumResponse.bodySize() + " bytes in total)";
+        }
+        return erbiumResponse.body();
     }
 
     public void printTime(ErbiumResponse erbiumResponse) {
-        out().log(LogType.UDEF, LogItem.TIMER, "\n" + erbiumResponse.time() + " ms.");
+        out().log(LogType.UDEF, LogItem.TIMER, () -> "\n" + erbiumResponse.time() + " ms." +
+                (erbiumResponse.timings() == null ? "" : " (" + erbiumResponse.timings() + ")") +
+                String.format(Locale.ROOT, " Body %d bytes, decoded in %.3f ms.",
+                        erbiumResponse.bodySize(), erbiumResponse.bodyDecodeNanos() / 1_000_000.0));
     }
 }
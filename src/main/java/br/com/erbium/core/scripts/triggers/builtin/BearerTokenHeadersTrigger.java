@@ -0,0 +1,122 @@
+package br.com.erbium.core.scripts.triggers.builtin;
+
+import br.com.erbium.core.Endpoint;
+import br.com.erbium.core.Header;
+import br.com.erbium.core.Headers;
+import br.com.erbium.core.TokenManager;
+import br.com.erbium.core.interfaces.HeadersManagerOperator;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.experimental.Accessors;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+
+/**
+ * Sends an authentication token from a {@link TokenManager} in the Authorization header, on top of the
+ * default headers (see {@link DefaultHeadersTrigger}).
+ * <p>
+ * The token is taken from the workspace token manager unless another one is given, so every endpoint,
+ * fork and virtual user using the same credentials shares one token and one refresh, instead of logging in
+ * separately and copying the token with {@code qrset} and {@code {{token}}}.
+ */
+@Getter @Accessors(fluent = true)
+public class BearerTokenHeadersTrigger extends DefaultHeadersTrigger {
+
+    private final Object credentials;
+    private final TokenManager.TokenSource source;
+    private TokenManager tokenManager;
+    private String headerName = "Authorization";
+    private String scheme = "Bearer";
+
+    @Getter(AccessLevel.NONE)
+    private Endpoint endpoint;
+
+    /**
+     * @param credentials Identifies the credential set in the token manager.
+     * @param source      Fetches a token for these credentials, e.g. {@link TokenManager#fromEndpoint}.
+     */
+    public BearerTokenHeadersTrigger(@NonNull Object credentials, @NonNull TokenManager.TokenSource source) {
+        this.credentials = credentials;
+        this.source = source;
+    }
+
+    /**
+     * @param tokenManager The token manager to use instead of the workspace one.
+     * @return This {@link BearerTokenHeadersTrigger} instance for fluent chaining.
+     */
+    public BearerTokenHeadersTrigger tokenManager(TokenManager tokenManager) {
+        this.tokenManager = tokenManager;
+        return this;
+    }
+
+    /**
+     * @param headerName The header carrying the token. Default: Authorization.
+     * @return This {@link BearerTokenHeadersTrigger} instance for fluent chaining.
+     */
+    public BearerTokenHeadersTrigger headerName(@NonNull String headerName) {
+        this.headerName = headerName;
+        return this;
+    }
+
+    /**
+     * @param scheme The scheme written before the token, or an empty string for the token alone. Default: Bearer.
+     * @return This {@link BearerTokenHeadersTrigger} instance for fluent chaining.
+     */
+    public BearerTokenHeadersTrigger scheme(@NonNull String scheme) {
+        this.scheme = scheme;
+        return this;
+    }
+
+    @Override
+    public void attach(HeadersManagerOperator headersManagerOperator, Endpoint endpoint) {
+        super.attach(headersManagerOperator, endpoint);
+        this.endpoint = endpoint;
+    }
+
+    @Override
+    public void run() {
+        String token = tokens().token(credentials, source).value();
+
+        Headers literalHeaders = headersManagerOperator().getLiteralHeaders(getMergedHeaders());
+        literalHeaders.setHeader(new Header(headerName, scheme.isEmpty() ? token : scheme + " " + token, "", "text"));
+        headersManagerOperator()
+                .setCommittedHeaders(literalHeaders);
+    }
+
+    /**
+     * Resolved on each run, as the endpoint may be added to a workspace after the trigger is queued.
+     *
+     * @throws IllegalStateException if no token manager is given and the endpoint is not in a workspace.
+     */
+    private TokenManager tokens() {
+        if (tokenManager != null) {
+            return tokenManager;
+        }
+        if (endpoint == null) {
+            throw new IllegalStateException("No token manager: the trigger is not attached to an endpoint.");
+        }
+        return endpoint.workspaceContext().tokens();
+    }
+
+    /**
+     * @return A new trigger with the same credentials and settings, for a forked endpoint.
+     */
+    @Override
+    public BearerTokenHeadersTrigger copy() {
+        return new BearerTokenHeadersTrigger(credentials, source)
+                .tokenManager(tokenManager)
+                .headerName(headerName)
+                .scheme(scheme);
+    }
+}
@@ -5,9 +5,7 @@ import br.com.erbium.core.Headers;
 import br.com.erbium.core.base.scripts.HeadersTrigger;
 import br.com.erbium.core.enums.RequestType;
 
-import java.util.LinkedHashMap;
-import java.util.LinkedList;
-import java.util.Map;
+import java.util.Objects;
 
 /**
  * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
@@ -21,79 +19,115 @@ import java.util.Map;
  * under the ERBIUM name are protected trademarks.
  */
 
+/**
+ * Adds the default User-Agent and Content-Type headers to the endpoint headers.
+ * <p>
+ * The merged headers are computed into a new {@link Headers}, leaving the endpoint headers as the user set
+ * them, and are reused as long as the method, the request type and the endpoint headers
+ * (see {@link Headers#generation()}) are the same.
+ */
 public class DefaultHeadersTrigger extends HeadersTrigger implements Runnable {
 
+    private static final String CONTENT_TYPE = "Content-Type";
+
+    // The last merged headers and what they were computed from
+    private Headers merged;
+    private Headers mergedFrom;
+    private long mergedGeneration;
+    private String mergedMethod;
+    private RequestType mergedRequestType;
+
     public DefaultHeadersTrigger() {
 
     }
 
     @Override
     public void run() {
-
-        getBasicRequirementHeaders();
-
-        getCleanedupHeaders(); // this includes headers with environment variables replaced
-
         // Now we will set the literal headers (environment variables are replaced here)
-        Headers literalHeaders = headersManagerOperator().getLiteralHeaders();
+        Headers literalHeaders = headersManagerOperator().getLiteralHeaders(getMergedHeaders());
         // This is to ensure that the headers are set correctly for the next submission
         headersManagerOperator()
                 .setCommittedHeaders(literalHeaders);
     }
 
-    @Override
-    public void getBasicRequirementHeaders() {
-        // FIX: Simplified and corrected the header merging logic.
-        // The principle is that user-defined headers should always overwrite defaults.
-
-        // 1. Start with a map that will hold the final headers. Using a map
-        // naturally handles overwriting duplicates by key.
-        Map<String, Header> finalHeaders = new LinkedHashMap<>();
-
-        // 2. Add default headers first.
-        finalHeaders.put("User-Agent", new Header("User-Agent", "Erbium/0.1.0", "", "text"));
-
-
-        if (method().equals("POST") ||
-                method().equals("PUT") ||
-                method().equals("PATCH") ||
-                method().equals("DELETE") ||
-                method().equals("OPTIONS")) {
+    /**
+     * Returns the endpoint headers merged with the defaults and cleaned up, without modifying the endpoint
+     * headers. User-defined headers overwrite the defaults, except the Content-Type, which follows the
+     * request type.
+     *
+     * @return The merged headers, shared until the inputs change: they must not be modified.
+     */
+    public Headers getMergedHeaders() {
+        Headers existingHeaders = headersManagerOperator().getHeaders();
+        if (merged != null
+                && mergedFrom == existingHeaders
+                && mergedGeneration == existingHeaders.generation()
+                && Objects.equals(mergedMethod, method())
+                && mergedRequestType == requestType()) {
+            return merged;
+        }
 
-            if (requestType().equals(RequestType.JSON)) {
-                finalHeaders.put("Content-Type", new Header("Content-Type", "application/json", "", ""));
-            }
-            if (requestType().equals(RequestType.XML)) {
-                finalHeaders.put("Content-Type", new Header("Content-Type", "application/xml", "", ""));
-            }
-            if (requestType().equals(RequestType.URL_ENCODED)) {
-                finalHeaders.put("Content-Type", new Header("Content-Type", "application/x-www-form-urlencoded", "", ""));
-            }
-            if (requestType().equals(RequestType.MULTIPART_FORMDATA)) {
-                finalHeaders.put("Content-Type", new Header("Content-Type", "multipart/form-data", "", ""));
-            }
+        Headers headers = new Headers();
+        // 1. Add default headers first.
+        headers.setHeader(new Header("User-Agent", "Erbium/0.1.0", "", "text"));
+        String contentType = defaultContentType();
+        if (contentType != null) {
+            headers.setHeader(new Header(CONTENT_TYPE, contentType, "", ""));
         }
 
-        // 3. Get the user's current headers and let them overwrite the defaults in the map.
+        // 2. Let the user's headers overwrite the defaults, whatever the case of their names.
         // Exception: the Content-Type will remain adjusted by the request type.
-        Headers existingHeaders = headersManagerOperator().getHeaders();
         for (Header existingHeader : existingHeaders.headers()) {
-            if (existingHeader.getKey().equals("Content-Type")) {
+            if (existingHeader.getKey() != null && existingHeader.getKey().equalsIgnoreCase(CONTENT_TYPE)) {
                 continue;
             }
-            finalHeaders.put(existingHeader.getKey(), existingHeader);
+            headers.setHeader(existingHeader);
         }
+        clean(headers);
+
+        merged = headers;
+        mergedFrom = existingHeaders;
+        mergedGeneration = existingHeaders.generation();
+        mergedMethod = method();
+        mergedRequestType = requestType();
+        return merged;
+    }
 
-        // 4. Set the final, merged headers back to the manager.
+    /**
+     * Replaces the endpoint headers with the merged headers (see {@link #getMergedHeaders()}).
+     */
+    @Override
+    public void getBasicRequirementHeaders() {
         Headers headers = new Headers();
-        headers.headers(new LinkedList<>(finalHeaders.values()));
+        headers.headers(getMergedHeaders().headers());
         headersManagerOperator().setHeaders(headers);
     }
 
     //@Override
     public void getCleanedupHeaders() {
-        headersManagerOperator().getHeaders()
-                .removeIfValueIsNull()
+        clean(headersManagerOperator().getHeaders());
+    }
+
+    private String defaultContentType() {
+        if (method().equals("POST") ||
+                method().equals("PUT") ||
+                method().equals("PATCH") ||
+                method().equals("DELETE") ||
+                method().equals("OPTIONS")) {
+
+            return switch (requestType()) {
+                case JSON -> "application/json";
+                case XML -> "application/xml";
+                case URL_ENCODED -> "application/x-www-form-urlencoded";
+                case MULTIPART_FORMDATA -> "multipart/form-data";
+                default -> null;
+            };
+        }
+        return null;
+    }
+
+    private static void clean(Headers headers) {
+        headers.removeIfValueIsNull()
                 .removeIfHeaderKeyIsEmpty()
                 .removeDuplicates();
     }
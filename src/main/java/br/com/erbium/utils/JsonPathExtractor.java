@@ -0,0 +1,199 @@
+package br.com.erbium.utils;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.experimental.Accessors;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+
+/**
+ * Extracts several JsonPath expressions from a JSON document in a single streaming pass.
+ * <p>
+ * The simple definite paths (properties and non-negative indexes, see {@link JsonPaths}) are merged into a
+ * tree, and the document tokens are read once with a Jackson {@link JsonParser}. Branches that no path
+ * goes through are skipped without being materialized, and reading stops as soon as every path has been
+ * resolved, so a token near the top of a large list response is found without reading the list.
+ * <p>
+ * Only scalar values are extracted this way. Paths that select an object or an array, and paths using
+ * anything else (wildcards, filters, deep scans, negative indexes), are left to the caller, who reads
+ * them from the parsed document.
+ */
+public final class JsonPathExtractor {
+
+    /**
+     * The value returned for a path that does not exist in the document.
+     */
+    public static final Object NOT_FOUND = new Object();
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    // marks the paths left to the caller while the document is read
+    private static final Object UNRESOLVED = new Object();
+
+    @Getter @Accessors(fluent = true)
+    private final List<String> paths;
+    private final Node root = new Node();
+    private final int streamable;
+
+    private static final class Node {
+        final List<String> paths = new ArrayList<>(1);
+        final Map<String, Node> properties = new HashMap<>();
+        final Map<Integer, Node> indexes = new HashMap<>();
+    }
+
+    private JsonPathExtractor(List<String> paths) {
+        this.paths = paths;
+        int count = 0;
+        for (String path : paths) {
+            Object[] segments = JsonPaths.simpleSegments(path);
+            if (segments == null || !isStreamable(segments)) {
+                continue;
+            }
+            Node node = root;
+            for (Object segment : segments) {
+                node = segment instanceof String property
+                        ? node.properties.computeIfAbsent(property, key -> new Node())
+                        : node.indexes.computeIfAbsent((Integer) segment, key -> new Node());
+            }
+            node.paths.add(path);
+            count++;
+        }
+        this.streamable = count;
+    }
+
+    /**
+     * @param paths The JsonPath expressions to extract; duplicates are merged.
+     * @return The compiled extractor.
+     */
+    public static JsonPathExtractor compile(@NonNull Iterable<String> paths) {
+        LinkedHashSet<String> distinct = new LinkedHashSet<>();
+        paths.forEach(distinct::add);
+        return new JsonPathExtractor(List.copyOf(distinct));
+    }
+
+    /**
+     * Reads the document once and returns the scalar value of every path that can be streamed.
+     *
+     * @param json The JSON document.
+     * @return The values by path: a String, Number, Boolean or null, or {@link #NOT_FOUND}.
+     * Paths missing from the map must be read from the parsed document.
+     * @throws IOException if the document is not valid JSON.
+     */
+    public Map<String, Object> extract(@NonNull String json) throws IOException {
+        Map<String, Object> values = new LinkedHashMap<>();
+        if (streamable > 0) {
+            try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+                if (parser.nextToken() != null) {
+                    walk(parser, root, values);
+                }
+            }
+            // Whatever was not reached does not exist
+            markNotFound(root, values);
+            values.values().removeIf(value -> value == UNRESOLVED);
+        }
+        return values;
+    }
+
+    /**
+     * Reads the value the parser is positioned on.
+     *
+     * @return false once every streamable path has been resolved, to stop reading.
+     */
+    private boolean walk(JsonParser parser, Node node, Map<String, Object> values) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token.isStructStart()) {
+            // A container: the caller reads the paths selecting it from the document
+            for (String path : node.paths) {
+                values.putIfAbsent(path, UNRESOLVED);
+            }
+            if (node.properties.isEmpty() && node.indexes.isEmpty()) {
+                parser.skipChildren();
+            } else if (token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    Node child = node.properties.get(parser.currentName());
+                    parser.nextToken();
+                    if (child == null) {
+                        parser.skipChildren();
+                    } else if (!walk(parser, child, values)) {
+                        return false;
+                    }
+                }
+            } else {
+                int index = 0;
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    Node child = node.indexes.get(index++);
+                    if (child == null) {
+                        parser.skipChildren();
+                    } else if (!walk(parser, child, values)) {
+                        return false;
+                    }
+                }
+            }
+            return values.size() < streamable;
+        }
+
+        if (!node.paths.isEmpty()) {
+            Object value = scalar(parser, token);
+            for (String path : node.paths) {
+                if (!values.containsKey(path)) {
+                    values.put(path, value);
+                }
+            }
+        }
+        return values.size() < streamable;
+    }
+
+    private static Object scalar(JsonParser parser, JsonToken token) throws IOException {
+        return switch (token) {
+            case VALUE_STRING -> parser.getText();
+            case VALUE_NUMBER_INT -> switch (parser.getNumberType()) {
+                case INT -> parser.getIntValue();
+                case LONG -> parser.getLongValue();
+                default -> parser.getBigIntegerValue();
+            };
+            case VALUE_NUMBER_FLOAT -> parser.getDoubleValue();
+            case VALUE_TRUE -> Boolean.TRUE;
+            case VALUE_FALSE -> Boolean.FALSE;
+            default -> null;
+        };
+    }
+
+    private static void markNotFound(Node node, Map<String, Object> values) {
+        for (String path : node.paths) {
+            if (!values.containsKey(path)) {
+                values.put(path, NOT_FOUND);
+            }
+        }
+        node.properties.values().forEach(child -> markNotFound(child, values));
+        node.indexes.values().forEach(child -> markNotFound(child, values));
+    }
+
+    private static boolean isStreamable(Object[] segments) {
+        for (Object segment : segments) {
+            if (segment instanceof Integer index && index < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -37,7 +37,7 @@ public class JsonPathReader {
      * Reads a value with automatic Java type inference.
      */
     public Object read(String path) {
-        Object raw = context.read(path);
+        Object raw = JsonPaths.read(context, path);
         return convertValue(raw);
     }
 
@@ -45,7 +45,7 @@ public class JsonPathReader {
      * Reads a value with a default fallback if not found.
      */
     public Object readOrDefault(String path, Object defaultValue) {
-        Object raw = context.read(path);
+        Object raw = JsonPaths.read(context, path);
         return raw != null ? convertValue(raw) : defaultValue;
     }
 
@@ -53,7 +53,7 @@ public class JsonPathReader {
      * Reads an object (JSON object) as a Map.
      */
     public Map<String, Object> readObject(String path) {
-        Object raw = context.read(path);
+        Object raw = JsonPaths.read(context, path);
         if (raw instanceof Map<?, ?> map) {
             return castMapWithConversion(map);
         }
@@ -64,7 +64,7 @@ public class JsonPathReader {
      * Reads an array as a List.
      */
     public List<Object> readArray(String path) {
-        Object raw = context.read(path);
+        Object raw = JsonPaths.read(context, path);
         if (raw instanceof List<?> list) {
             return list.stream().map(this::convertValue).toList();
         }
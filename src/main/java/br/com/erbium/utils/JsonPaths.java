@@ -0,0 +1,262 @@
+package br.com.erbium.utils;
+
+import com.jayway.jsonpath.DocumentContext;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.Option;
+import com.jayway.jsonpath.PathNotFoundException;
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+
+/**
+ * Shared cache of compiled {@link JsonPath} expressions.
+ * <p>
+ * Request bodies, response extractions ({@code rset}/{@code qrset}) and {@link JsonPathReader} use the same
+ * handful of paths over and over; compiling each one once saves tokenizing it on every call. The cache is
+ * bounded: like the variable template cache, it is cleared when full.
+ * <p>
+ * Simple definite paths, made only of properties and array indexes ({@code $.data.items[0].id} or
+ * {@code $['data']['id']}), are read by walking the document tree directly instead of running the
+ * general engine. They fail exactly like the engine does: a missing property or index raises a
+ * {@link PathNotFoundException}, or yields null under {@link Option#SUPPRESS_EXCEPTIONS}.
+ * <p>
+ * {@link #cacheStats()} reports the hit rate.
+ */
+public final class JsonPaths {
+
+    private static final int MAX_CACHED_PATHS = 4096;
+
+    private static final Map<String, CompiledPath> CACHE = new ConcurrentHashMap<>();
+    private static final LongAdder HITS = new LongAdder();
+    private static final LongAdder MISSES = new LongAdder();
+    private static final LongAdder FAST_READS = new LongAdder();
+
+    /**
+     * @param path     The compiled expression.
+     * @param segments Property names and indexes of a simple definite path, or null for other paths.
+     */
+    private record CompiledPath(JsonPath path, Object[] segments) {
+    }
+
+    /**
+     * Cache counters since the start of the process (or the last {@link #clear()}).
+     *
+     * @param hits      Lookups answered from the cache.
+     * @param misses    Lookups that compiled the path.
+     * @param fastReads Reads evaluated without the general engine.
+     * @param size      Paths currently cached.
+     */
+    public record CacheStats(long hits, long misses, long fastReads, int size) {
+
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return "JsonPath cache: " + size + " paths" +
+                    ", hits " + hits +
+                    ", misses " + misses +
+                    ", hit rate " + String.format(Locale.ROOT, "%.1f%%", hitRate() * 100) +
+                    ", fast reads " + fastReads;
+        }
+    }
+
+    private JsonPaths() {
+    }
+
+    /**
+     * Returns the compiled expression for the given path, compiling it on first use.
+     *
+     * @param path The JsonPath expression.
+     * @return The compiled {@link JsonPath}.
+     */
+    public static JsonPath compile(@NonNull String path) {
+        return compiled(path).path();
+    }
+
+    /**
+     * Reads a path from the document, like {@link DocumentContext#read(String, com.jayway.jsonpath.Predicate...)}.
+     *
+     * @param context The document.
+     * @param path    The JsonPath expression.
+     * @return The value found.
+     * @throws PathNotFoundException if the path does not exist and exceptions are not suppressed.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> T read(@NonNull DocumentContext context, @NonNull String path) {
+        CompiledPath compiled = compiled(path);
+        if (compiled.segments() != null) {
+            Set<Option> options = context.configuration().getOptions();
+            boolean suppress = options.contains(Option.SUPPRESS_EXCEPTIONS);
+            if (options.isEmpty() || (suppress && options.size() == 1)) {
+                FAST_READS.increment();
+                try {
+                    return (T) walk(context.json(), compiled.segments(), path);
+                } catch (PathNotFoundException e) {
+                    if (suppress) {
+                        return null;
+                    }
+                    throw e;
+                }
+            }
+        }
+        return context.read(compiled.path());
+    }
+
+    /**
+     * @return The current cache counters.
+     */
+    public static CacheStats cacheStats() {
+        return new CacheStats(HITS.sum(), MISSES.sum(), FAST_READS.sum(), CACHE.size());
+    }
+
+    /**
+     * Empties the cache and resets its counters.
+     */
+    public static void clear() {
+        CACHE.clear();
+        HITS.reset();
+        MISSES.reset();
+        FAST_READS.reset();
+    }
+
+    private static CompiledPath compiled(String path) {
+        CompiledPath compiled = CACHE.get(path);
+        if (compiled != null) {
+            HITS.increment();
+            return compiled;
+        }
+        MISSES.increment();
+        compiled = new CompiledPath(JsonPath.compile(path), simpleSegments(path));
+        if (CACHE.size() >= MAX_CACHED_PATHS) {
+            CACHE.clear();
+        }
+        CACHE.putIfAbsent(path, compiled);
+        return compiled;
+    }
+
+    private static Object walk(Object node, Object[] segments, String path) {
+        for (Object segment : segments) {
+            if (segment instanceof String property) {
+                if (!(node instanceof Map<?, ?> map) || !map.containsKey(property)) {
+                    throw new PathNotFoundException("No results for path: " + path);
+                }
+                node = map.get(property);
+            } else {
+                if (!(node instanceof List<?> list)) {
+                    throw new PathNotFoundException("No results for path: " + path);
+                }
+                int index = (Integer) segment;
+                if (index < 0) {
+                    index += list.size();
+                }
+                if (index < 0 || index >= list.size()) {
+                    throw new PathNotFoundException("No results for path: " + path);
+                }
+                node = list.get(index);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Splits a path made only of properties and indexes into its segments.
+     *
+     * @return The property names (String) and indexes (Integer), or null if the path uses anything else.
+     */
+    static Object[] simpleSegments(String path) {
+        String expression = path.trim();
+        if (expression.startsWith("$")) {
+            expression = expression.substring(1);
+        } else if (expression.startsWith("@")) {
+            return null;
+        } else {
+            // JsonPath reads "a.b" as "$.a.b"
+            expression = "." + expression;
+        }
+
+        List<Object> segments = new ArrayList<>();
+        int position = 0;
+        while (position < expression.length()) {
+            char c = expression.charAt(position);
+            if (c == '.') {
+                int start = ++position;
+                while (position < expression.length() && isPropertyChar(expression.charAt(position))) {
+                    position++;
+                }
+                if (start == position) {
+                    return null; // deep scan (..), wildcard or function
+                }
+                if (position < expression.length() && expression.charAt(position) == '(') {
+                    return null; // function call
+                }
+                segments.add(expression.substring(start, position));
+            } else if (c == '[') {
+                int end = expression.indexOf(']', position);
+                if (end < 0) {
+                    return null;
+                }
+                String inner = expression.substring(position + 1, end).trim();
+                Object segment = bracketSegment(inner);
+                if (segment == null) {
+                    return null;
+                }
+                segments.add(segment);
+                position = end + 1;
+            } else {
+                return null;
+            }
+        }
+        return segments.toArray();
+    }
+
+    private static Object bracketSegment(String inner) {
+        if (inner.length() >= 2) {
+            char quote = inner.charAt(0);
+            if ((quote == '\'' || quote == '"') && inner.charAt(inner.length() - 1) == quote) {
+                String property = inner.substring(1, inner.length() - 1);
+                for (int i = 0; i < property.length(); i++) {
+                    char c = property.charAt(i);
+                    if (c == '\'' || c == '"' || c == '\\' || c == ',') {
+                        return null; // escapes or multiple properties
+                    }
+                }
+                return property;
+            }
+        }
+        int start = inner.startsWith("-") ? 1 : 0;
+        if (inner.length() == start || inner.length() > 9) {
+            return null;
+        }
+        for (int i = start; i < inner.length(); i++) {
+            if (!Character.isDigit(inner.charAt(i))) {
+                return null; // wildcard, slice, union or filter
+            }
+        }
+        return Integer.parseInt(inner);
+    }
+
+    private static boolean isPropertyChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-' || c == '$';
+    }
+}
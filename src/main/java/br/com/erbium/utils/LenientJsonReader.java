@@ -0,0 +1,366 @@
+package br.com.erbium.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.jayway.jsonpath.InvalidJsonException;
+import lombok.NonNull;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+
+/**
+ * A single-pass reader for the relaxed JSON accepted in request bodies, producing the parsed tree
+ * ({@link Map}, {@link List}, {@link String}, {@link Number}, {@link Boolean} or null) directly.
+ * <p>
+ * On top of standard JSON it accepts:
+ * <ul>
+ *     <li>unquoted object keys ({@code {name: "x"}}) and single-quoted strings;</li>
+ *     <li>Postman-style placeholders as raw values ({@code {"port": {{port}}}}) and as keys;</li>
+ *     <li>placeholders inside strings ({@code "Hello {{name}}"});</li>
+ *     <li>trailing commas in objects and arrays.</li>
+ * </ul>
+ * Placeholders are never resolved while reading, so the tree stays a template bound only when it is sent:
+ * keys and strings keep the placeholder text, and a raw placeholder becomes a {@link RawPlaceholder}, which
+ * is serialized back unquoted. Unlike a regex rewrite, text inside string values is never mistaken for a key.
+ * <p>
+ * Numbers are read as {@link Integer}, {@link Long} or {@link BigInteger}, and decimals as {@link Double},
+ * as the default JsonPath provider does. Malformed input raises an {@link InvalidJsonException}.
+ */
+public final class LenientJsonReader {
+
+    /**
+     * A placeholder read as a value ({@code {"port": {{port}}}}), bound to the variable's JSON value when
+     * the body is sent. It is serialized back as the unquoted placeholder.
+     *
+     * @param name The variable name, without braces.
+     */
+    public record RawPlaceholder(@NonNull String name) implements JsonSerializable {
+
+        @Override
+        public void serialize(JsonGenerator generator, SerializerProvider serializers) throws IOException {
+            generator.writeRawValue(toString());
+        }
+
+        @Override
+        public void serializeWithType(JsonGenerator generator, SerializerProvider serializers, TypeSerializer typeSerializer) throws IOException {
+            serialize(generator, serializers);
+        }
+
+        @Override
+        public String toString() {
+            return "{{" + name + "}}";
+        }
+    }
+
+    private final String input;
+    private final StringBuilder buffer = new StringBuilder();
+    private int position;
+
+    private LenientJsonReader(String input) {
+        this.input = input;
+    }
+
+    /**
+     * Reads a relaxed JSON document, leaving its placeholders unbound.
+     *
+     * @param json The document.
+     * @return The parsed tree.
+     * @throws InvalidJsonException if the document is malformed.
+     */
+    public static Object read(@NonNull String json) {
+        LenientJsonReader reader = new LenientJsonReader(json);
+        reader.skipWhitespace();
+        Object value = reader.readValue();
+        reader.skipWhitespace();
+        if (reader.position < json.length()) {
+            throw reader.error("Unexpected content after the JSON value");
+        }
+        return value;
+    }
+
+    private Object readValue() {
+        skipWhitespace();
+        if (position >= input.length()) {
+            throw error("Unexpected end of input");
+        }
+        char c = input.charAt(position);
+        switch (c) {
+            case '{':
+                String placeholder = placeholderAt(position);
+                if (placeholder != null) {
+                    return readRawPlaceholder(placeholder);
+                }
+                return readObject();
+            case '[':
+                return readArray();
+            case '"':
+            case '\'':
+                return readString(c);
+            case 't':
+                return readLiteral("true", Boolean.TRUE);
+            case 'f':
+                return readLiteral("false", Boolean.FALSE);
+            case 'n':
+                return readLiteral("null", null);
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    return readNumber();
+                }
+                throw error("Unexpected character '" + c + "'");
+        }
+    }
+
+    private Map<String, Object> readObject() {
+        position++; // {
+        Map<String, Object> object = new LinkedHashMap<>();
+        skipWhitespace();
+        if (consume('}')) {
+            return object;
+        }
+        while (true) {
+            String key = readKey();
+            skipWhitespace();
+            if (!consume(':')) {
+                throw error("Expected ':' after key '" + key + "'");
+            }
+            object.put(key, readValue());
+            skipWhitespace();
+            if (consume(',')) {
+                skipWhitespace();
+                if (consume('}')) {
+                    return object;
+                }
+            } else if (consume('}')) {
+                return object;
+            } else {
+                throw error("Expected ',' or '}' in object");
+            }
+        }
+    }
+
+    private List<Object> readArray() {
+        position++; // [
+        List<Object> array = new ArrayList<>();
+        skipWhitespace();
+        if (consume(']')) {
+            return array;
+        }
+        while (true) {
+            array.add(readValue());
+            skipWhitespace();
+            if (consume(',')) {
+                skipWhitespace();
+                if (consume(']')) {
+                    return array;
+                }
+            } else if (consume(']')) {
+                return array;
+            } else {
+                throw error("Expected ',' or ']' in array");
+            }
+        }
+    }
+
+    private String readKey() {
+        if (position >= input.length()) {
+            throw error("Unexpected end of input, expected a key");
+        }
+        char c = input.charAt(position);
+        if (c == '"' || c == '\'') {
+            return readString(c);
+        }
+        String placeholder = placeholderAt(position);
+        if (placeholder != null) {
+            String text = input.substring(position, position + placeholder.length() + 4);
+            position += text.length();
+            return text;
+        }
+        int start = position;
+        while (position < input.length() && isBareKeyChar(input.charAt(position))) {
+            position++;
+        }
+        if (start == position) {
+            throw error("Expected a key");
+        }
+        return input.substring(start, position);
+    }
+
+    private String readString(char quote) {
+        position++; // opening quote
+        int start = position;
+        // Fast path: no escapes
+        while (position < input.length()) {
+            char c = input.charAt(position);
+            if (c == quote) {
+                position++;
+                return input.substring(start, position - 1);
+            }
+            if (c == '\\') {
+                break;
+            }
+            position++;
+        }
+
+        buffer.setLength(0);
+        buffer.append(input, start, position);
+        while (position < input.length()) {
+            char c = input.charAt(position);
+            if (c == quote) {
+                position++;
+                return buffer.toString();
+            }
+            if (c == '\\') {
+                readEscape();
+                continue;
+            }
+            buffer.append(c);
+            position++;
+        }
+        throw error("Unterminated string");
+    }
+
+    private void readEscape() {
+        if (position + 1 >= input.length()) {
+            throw error("Unterminated escape sequence");
+        }
+        char c = input.charAt(position + 1);
+        position += 2;
+        switch (c) {
+            case '"', '\'', '\\', '/' -> buffer.append(c);
+            case 'b' -> buffer.append('\b');
+            case 'f' -> buffer.append('\f');
+            case 'n' -> buffer.append('\n');
+            case 'r' -> buffer.append('\r');
+            case 't' -> buffer.append('\t');
+            case 'u' -> {
+                if (position + 4 > input.length()) {
+                    throw error("Invalid unicode escape");
+                }
+                try {
+                    buffer.append((char) Integer.parseInt(input, position, position + 4, 16));
+                } catch (NumberFormatException e) {
+                    throw error("Invalid unicode escape");
+                }
+                position += 4;
+            }
+            default -> throw error("Invalid escape sequence '\\" + c + "'");
+        }
+    }
+
+    private Object readNumber() {
+        int start = position;
+        boolean decimal = false;
+        if (input.charAt(position) == '-') {
+            position++;
+        }
+        while (position < input.length()) {
+            char c = input.charAt(position);
+            if (c >= '0' && c <= '9') {
+                position++;
+            } else if (c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+                decimal = true;
+                position++;
+            } else {
+                break;
+            }
+        }
+        String text = input.substring(start, position);
+        try {
+            if (decimal) {
+                return Double.parseDouble(text);
+            }
+            long value = Long.parseLong(text);
+            if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                return (int) value;
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            if (!decimal && text.length() > 1) {
+                try {
+                    return new BigInteger(text);
+                } catch (NumberFormatException ignored) {
+                    // reported below
+                }
+            }
+            position = start;
+            throw error("Invalid number '" + text + "'");
+        }
+    }
+
+    private Object readLiteral(String literal, Object value) {
+        if (!input.startsWith(literal, position)
+                || (position + literal.length() < input.length() && isBareKeyChar(input.charAt(position + literal.length())))) {
+            throw error("Unexpected token");
+        }
+        position += literal.length();
+        return value;
+    }
+
+    private RawPlaceholder readRawPlaceholder(String placeholder) {
+        position += placeholder.length() + 4;
+        return new RawPlaceholder(placeholder.trim());
+    }
+
+    /**
+     * @return The placeholder name (untrimmed) if a {@code {{name}}} placeholder starts at the given index.
+     */
+    private String placeholderAt(int index) {
+        if (!input.startsWith("{{", index)) {
+            return null;
+        }
+        int end = input.indexOf("}}", index + 2);
+        if (end < 0) {
+            return null;
+        }
+        for (int i = index + 2; i < end; i++) {
+            char c = input.charAt(i);
+            if (c == '{' || c == '}' || c == '"' || c == '\'' || c == ':' || c == ',' || c == '\n') {
+                return null;
+            }
+        }
+        String name = input.substring(index + 2, end);
+        return name.isBlank() ? null : name;
+    }
+
+    private static boolean isBareKeyChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$' || c == '-' || c == '.';
+    }
+
+    private boolean consume(char expected) {
+        if (position < input.length() && input.charAt(position) == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (position < input.length() && Character.isWhitespace(input.charAt(position))) {
+            position++;
+        }
+    }
+
+    private InvalidJsonException error(String message) {
+        int from = Math.max(0, position - 20);
+        int to = Math.min(input.length(), position + 20);
+        return new InvalidJsonException(message + " at position " + position + ": ..." + input.substring(from, to) + "...");
+    }
+}
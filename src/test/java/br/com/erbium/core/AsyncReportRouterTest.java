@@ -0,0 +1,187 @@
+package br.com.erbium.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+class AsyncReportRouterTest {
+
+    @Test
+    void closeRoutesEveryMessageInOrderAndCommitsOnce() {
+        RecordingRouter delegate = new RecordingRouter();
+        AsyncReportRouter router = new AsyncReportRouter(delegate, 4, AsyncReportRouter.OverflowPolicy.BLOCK);
+
+        for (int i = 0; i < 100; i++) {
+            router.route("m" + i);
+        }
+        router.close();
+        router.close();
+
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            expected.add("m" + i);
+        }
+        assertEquals(expected, delegate.messages());
+        assertEquals(1, delegate.commits.get());
+    }
+
+    @Test
+    void messagesRoutedAfterCloseAreWrittenSynchronously() {
+        RecordingRouter delegate = new RecordingRouter();
+        AsyncReportRouter router = new AsyncReportRouter(delegate);
+        router.route("before");
+        router.close();
+
+        router.route("after");
+
+        assertEquals(List.of("before", "after"), delegate.messages());
+    }
+
+    @Test
+    void blockLosesNothingAcrossProducers() throws Exception {
+        RecordingRouter delegate = new RecordingRouter();
+        AsyncReportRouter router = new AsyncReportRouter(delegate, 8, AsyncReportRouter.OverflowPolicy.BLOCK);
+        int producers = 4;
+        int messages = 5_000;
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            String prefix = "p" + p + ":";
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < messages; i++) {
+                    router.route(prefix + i);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        router.close();
+
+        List<String> routed = delegate.messages();
+        assertEquals(producers * messages, routed.size());
+        assertEquals(0, router.dropped());
+        for (int p = 0; p < producers; p++) {
+            String prefix = "p" + p + ":";
+            List<String> own = routed.stream().filter(message -> message.startsWith(prefix)).toList();
+            for (int i = 0; i < messages; i++) {
+                assertEquals(prefix + i, own.get(i));
+            }
+        }
+    }
+
+    @Test
+    void dropDiscardsOverflowingMessagesButWaitsForErrors() throws Exception {
+        RecordingRouter delegate = new RecordingRouter();
+        delegate.hold();
+        AsyncReportRouter router = new AsyncReportRouter(delegate, 2, AsyncReportRouter.OverflowPolicy.DROP);
+
+        router.route("taken");
+        assertTrue(delegate.entered.await(10, TimeUnit.SECONDS));
+        // The consumer is stuck on "taken": two messages fill the buffer and the rest are dropped
+        for (int i = 0; i < 10; i++) {
+            router.route("m" + i);
+        }
+        Thread error = Thread.ofPlatform().start(() -> router.route(LogType.ERROR, "error"));
+        error.join(200);
+        assertTrue(error.isAlive());
+
+        delegate.release();
+        error.join();
+        router.close();
+
+        assertEquals(8, router.dropped());
+        assertEquals(List.of("taken", "m0", "m1", "error"), delegate.messages());
+    }
+
+    private static final class RecordingRouter implements ReportRouter {
+        private final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+        private final AtomicInteger commits = new AtomicInteger();
+        private final CountDownLatch entered = new CountDownLatch(1);
+        private volatile CountDownLatch gate;
+
+        void hold() {
+            gate = new CountDownLatch(1);
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        List<String> messages() {
+            return List.copyOf(messages);
+        }
+
+        @Override
+        public void route(List<LogEvent> events) {
+            entered.countDown();
+            CountDownLatch current = gate;
+            if (current != null) {
+                try {
+                    current.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            ReportRouter.super.route(events);
+        }
+
+        @Override
+        public void route(LogType level, LogItem item, String message) {
+            messages.add(message);
+        }
+
+        @Override
+        public void route(String message) {
+            route(LogType.INFO, LogItem.MESSAGE, message);
+        }
+
+        @Override
+        public void route(LogType level, String message) {
+            route(level, LogItem.MESSAGE, message);
+        }
+
+        @Override
+        public void route(LogItem item, String message) {
+            route(LogType.INFO, item, message);
+        }
+
+        @Override
+        public void commit() {
+            commits.incrementAndGet();
+        }
+
+        @Override
+        public void setTargetOutput(int targetOutput) {
+        }
+
+        @Override
+        public int getTargetOutput() {
+            return 0;
+        }
+
+        @Override
+        public String getName() {
+            return "Recording";
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package br.com.erbium.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+class BaseEnvironmentConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 2_000;
+
+    @Test
+    void computeLosesNoUpdates() throws Exception {
+        CollectionEnvironment environment = new CollectionEnvironment();
+        environment.set("counter", 0);
+
+        runConcurrently(() -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                environment.compute("counter", value -> (Integer) value + 1);
+            }
+        });
+
+        assertEquals(THREADS * ITERATIONS, environment.get("counter"));
+    }
+
+    @Test
+    void compareAndSetHasOneWinner() throws Exception {
+        CollectionEnvironment environment = new CollectionEnvironment();
+        environment.set("owner", "none");
+        AtomicInteger winners = new AtomicInteger();
+
+        runConcurrently(() -> {
+            if (environment.compareAndSet("owner", "none", Thread.currentThread().getName())) {
+                winners.incrementAndGet();
+            }
+        });
+
+        assertEquals(1, winners.get());
+        assertFalse("none".equals(environment.get("owner")));
+    }
+
+    @Test
+    void compareAndSetComparesTheInheritedValueAndWritesToTheScope() {
+        CollectionEnvironment parent = new CollectionEnvironment();
+        parent.set("token", "old");
+        CollectionEnvironment scope = parent.newScope(null);
+
+        assertFalse(scope.compareAndSet("token", "other", "new"));
+        assertTrue(scope.compareAndSet("token", "old", "new"));
+
+        assertEquals("new", scope.get("token"));
+        assertEquals("old", parent.get("token"));
+    }
+
+    @Test
+    void readersAreNotDisturbedByWriters() throws Exception {
+        CollectionEnvironment environment = new CollectionEnvironment();
+        environment.set("fixed", "f");
+        AtomicInteger writer = new AtomicInteger();
+
+        runConcurrently(() -> {
+            boolean writes = writer.getAndIncrement() % 2 == 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                if (writes) {
+                    environment.set("key" + (i % 64), i);
+                    environment.remove("key" + ((i + 32) % 64));
+                } else {
+                    assertEquals("f", environment.replaceVars("{{fixed}}"));
+                    environment.getAllVariables();
+                }
+            }
+        });
+
+        assertEquals("f", environment.get("fixed"));
+    }
+
+    private static void runConcurrently(Runnable task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
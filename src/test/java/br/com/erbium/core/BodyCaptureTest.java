@@ -0,0 +1,101 @@
+package br.com.erbium.core;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+class BodyCaptureTest {
+
+    @Test
+    void fullDecodesWithTheContentTypeCharset() throws Exception {
+        byte[] bytes = "café".getBytes(StandardCharsets.ISO_8859_1);
+
+        BodyCapture.Captured captured = BodyCapture.full().capture(body(bytes, "text/plain; charset=ISO-8859-1"));
+
+        assertEquals("café", captured.body());
+        assertEquals(bytes.length, captured.bytes());
+        assertFalse(captured.truncated());
+    }
+
+    @Test
+    void fullDecodesAsUtf8ByDefault() throws Exception {
+        byte[] bytes = "café".getBytes(StandardCharsets.UTF_8);
+
+        assertEquals("café", BodyCapture.full().capture(body(bytes, null)).body());
+        assertEquals("café", BodyCapture.full().capture(body(bytes, "application/json")).body());
+    }
+
+    @Test
+    void aByteOrderMarkSelectsTheCharsetAndIsSkipped() throws Exception {
+        byte[] utf8 = concat(new byte[]{(byte) 0xEF, (byte) 0xBB, (byte) 0xBF}, "{}".getBytes(StandardCharsets.UTF_8));
+        byte[] utf16 = concat(new byte[]{(byte) 0xFE, (byte) 0xFF}, "{}".getBytes(StandardCharsets.UTF_16BE));
+
+        assertEquals("{}", BodyCapture.full().capture(body(utf8, "application/json; charset=ISO-8859-1")).body());
+        assertEquals("{}", BodyCapture.full().capture(body(utf16, "application/json")).body());
+    }
+
+    @Test
+    void firstBytesKeepsTheBeginningAndCountsTheRest() throws Exception {
+        BodyCapture.Captured captured = BodyCapture.firstBytes(3).capture(body("abcdef".getBytes(StandardCharsets.UTF_8), null));
+
+        assertEquals("abc", captured.body());
+        assertEquals(6, captured.bytes());
+        assertTrue(captured.truncated());
+    }
+
+    @Test
+    void discardAndHashOnlyKeepNoText() throws Exception {
+        BodyCapture.Captured discarded = BodyCapture.discard().capture(body("abc".getBytes(StandardCharsets.UTF_8), null));
+        BodyCapture.Captured hashed = BodyCapture.hashOnly().capture(body("abc".getBytes(StandardCharsets.UTF_8), null));
+
+        assertNull(discarded.body());
+        assertEquals(3, discarded.bytes());
+        assertNull(hashed.body());
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", hashed.hash());
+    }
+
+    @Test
+    void toFileWritesTheBody(@TempDir Path directory) throws Exception {
+        byte[] bytes = {0, 1, 2, (byte) 0xFF};
+
+        BodyCapture.Captured captured = BodyCapture.toFile(directory).capture(body(bytes, "application/octet-stream"));
+
+        assertNull(captured.body());
+        assertEquals(4, captured.bytes());
+        assertEquals(directory, captured.file().getParent());
+        assertArrayEquals(bytes, Files.readAllBytes(captured.file()));
+    }
+
+    private static ResponseBody body(byte[] bytes, String contentType) {
+        return ResponseBody.create(bytes, contentType == null ? null : MediaType.get(contentType));
+    }
+
+    private static byte[] concat(byte[] first, byte[] second) {
+        byte[] result = new byte[first.length + second.length];
+        System.arraycopy(first, 0, result, 0, first.length);
+        System.arraycopy(second, 0, result, first.length, second.length);
+        return result;
+    }
+}
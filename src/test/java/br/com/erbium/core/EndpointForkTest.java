@@ -0,0 +1,128 @@
+package br.com.erbium.core;
+
+import br.com.erbium.core.enums.Method;
+import br.com.erbium.core.enums.RequestType;
+import br.com.erbium.core.scripts._default.submission.ErbiumDefaultSubmissionScript;
+import br.com.erbium.core.scripts.triggers.builtin.BearerTokenHeadersTrigger;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+class EndpointForkTest {
+
+    private final Queue<String> received = new ConcurrentLinkedQueue<>();
+    private HttpServer server;
+    private Workspace workspace;
+    private Endpoint endpoint;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            received.add(exchange.getRequestHeaders().getFirst("X-User") + " "
+                    + exchange.getRequestHeaders().getFirst("Authorization"));
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+
+        workspace = new Workspace();
+        Collection collection = workspace.addCollection("users");
+        collection.set("user", "source");
+        endpoint = collection.addEndpoint("profile", RequestType.JSON)
+                .setMethod(Method.GET)
+                .setUrl("http://localhost:" + server.getAddress().getPort() + "/profile");
+        endpoint.setHeader("X-User", "{{user}}");
+    }
+
+    @AfterEach
+    void tearDown() {
+        workspace.close();
+        server.stop(0);
+    }
+
+    @Test
+    void forksRunHeadersTriggersAgainstTheirOwnVariables() {
+        TokenManager tokens = new TokenManager();
+        endpoint.queueHeaderTrigger("auth", new BearerTokenHeadersTrigger("user", () -> new TokenManager.Token("secret", null))
+                .tokenManager(tokens));
+        Endpoint alice = endpoint.fork().setLocal("user", "alice");
+        Endpoint bob = endpoint.fork().setLocal("user", "bob");
+
+        alice.send();
+        bob.send();
+        endpoint.send();
+        tokens.close();
+
+        assertEquals(List.of("alice Bearer secret", "bob Bearer secret", "source Bearer secret"), List.copyOf(received));
+        assertEquals(1, tokens.fetches());
+    }
+
+    @Test
+    void forksSharingTheDefinitionUseTheirOwnVariables() {
+        Endpoint alice = endpoint.fork().setLocal("user", "alice");
+        Endpoint bob = endpoint.fork().setLocal("user", "bob");
+
+        alice.send();
+        bob.send();
+
+        assertTrue(alice.sharesDefinition());
+        assertEquals(List.of("alice null", "bob null"), List.copyOf(received));
+        assertEquals(204, alice.getResponseManager().getLastResponse().code());
+        assertEquals(204, bob.getResponseManager().getLastResponse().code());
+    }
+
+    @Test
+    void changingAForkLeavesTheSourceUntouched() {
+        Endpoint fork = endpoint.fork();
+        fork.setHeader("X-User", "fork");
+
+        fork.send();
+        endpoint.send();
+
+        assertEquals(List.of("fork null", "source null"), List.copyOf(received));
+    }
+
+    @Test
+    void forksCreateOneSubmissionScriptPerSubmission() {
+        CountingSubmissionScript.created.set(0);
+        endpoint.setSubmissionScript(CountingSubmissionScript.class);
+        assertEquals(0, CountingSubmissionScript.created.get());
+
+        endpoint.fork().send();
+        endpoint.fork().send();
+
+        assertEquals(2, CountingSubmissionScript.created.get());
+        assertEquals(List.of("source null", "source null"), List.copyOf(received));
+    }
+
+    public static class CountingSubmissionScript extends ErbiumDefaultSubmissionScript {
+        static final AtomicInteger created = new AtomicInteger();
+
+        public CountingSubmissionScript() {
+            created.incrementAndGet();
+        }
+    }
+}
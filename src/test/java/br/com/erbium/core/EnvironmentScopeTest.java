@@ -0,0 +1,93 @@
+package br.com.erbium.core;
+
+import br.com.erbium.core.enums.RequestType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+class EnvironmentScopeTest {
+
+    private Workspace workspace;
+    private Collection collection;
+
+    @BeforeEach
+    void setUp() {
+        workspace = new Workspace();
+        collection = workspace.addCollection("scopes");
+    }
+
+    @AfterEach
+    void tearDown() {
+        workspace.close();
+    }
+
+    @Test
+    void collectionsReadThroughToTheWorkspace() {
+        workspace.set("host", "workspace");
+        Collection other = workspace.addCollection("other");
+        collection.set("host", "collection");
+
+        assertEquals("collection", collection.get("host"));
+        assertEquals("workspace", other.get("host"));
+        assertEquals("workspace", workspace.get("{{host}}"));
+
+        workspace.set("host", "changed");
+        assertEquals("changed", other.get("host"));
+    }
+
+    @Test
+    void endpointLocalsShadowTheCollectionOnly() {
+        collection.set("user", "shared");
+        Endpoint local = collection.addEndpoint("local", RequestType.JSON).setLocal("user", "mine");
+        Endpoint plain = collection.addEndpoint("plain", RequestType.JSON);
+
+        assertEquals("mine", local.get("user"));
+        assertEquals("shared", plain.get("user"));
+        assertEquals("shared", collection.get("user"));
+
+        collection.set("user", "updated");
+        assertEquals("mine", local.get("user"));
+        assertEquals("updated", plain.get("user"));
+    }
+
+    @Test
+    void removingAnInheritedVariableHidesItInThisScopeOnly() {
+        collection.set("user", "shared");
+        CollectionEnvironment scope = collection.collectionEnvironment().newScope(collection);
+
+        scope.remove("user");
+
+        assertNull(scope.get("user"));
+        assertEquals("shared", collection.get("user"));
+    }
+
+    @Test
+    void forkLocalsAreIsolated() {
+        collection.set("user", "shared");
+        Endpoint endpoint = collection.addEndpoint("profile", RequestType.JSON).setLocal("user", "source");
+
+        Endpoint first = endpoint.fork().setLocal("user", "first");
+        Endpoint second = endpoint.fork();
+
+        assertEquals("first", first.get("user"));
+        assertEquals("source", second.get("user"));
+        assertEquals("source", endpoint.get("user"));
+
+        endpoint.setLocal("user", "changed");
+        assertEquals("source", second.get("user"));
+    }
+}
@@ -0,0 +1,116 @@
+package br.com.erbium.core;
+
+import br.com.erbium.core.enums.Method;
+import br.com.erbium.core.enums.RequestType;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+class ExecutionPlanTest {
+
+    private final Queue<String> received = new ConcurrentLinkedQueue<>();
+    private HttpServer server;
+    private Workspace workspace;
+    private Endpoint endpoint;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            received.add(exchange.getRequestURI().getPath() + " " + exchange.getRequestHeaders().getFirst("X-Value") + " " + body);
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+
+        workspace = new Workspace();
+        Collection collection = workspace.addCollection("plans");
+        endpoint = collection.addEndpoint("items", RequestType.JSON)
+                .setMethod(Method.POST)
+                .setUrl("http://localhost:" + server.getAddress().getPort() + "/items");
+        endpoint.setHeader("X-Value", "a");
+        endpoint.getJsonRequest().setBody("{name: \"n\"}");
+    }
+
+    @AfterEach
+    void tearDown() {
+        workspace.close();
+        server.stop(0);
+    }
+
+    @Test
+    void planIsReusedUntilTheDefinitionChanges() {
+        RequestManager requestManager = endpoint.requestManager();
+        ExecutionPlan plan = requestManager.executionPlan();
+        assertSame(plan, requestManager.executionPlan());
+
+        endpoint.setUrl("http://localhost:" + server.getAddress().getPort() + "/other");
+        ExecutionPlan changedUrl = requestManager.executionPlan();
+        assertNotSame(plan, changedUrl);
+
+        endpoint.setHeader("X-Value", "b");
+        assertNotSame(changedUrl, requestManager.executionPlan());
+    }
+
+    @Test
+    void headerChangedInPlaceIsSent() {
+        endpoint.send();
+        ExecutionPlan plan = endpoint.requestManager().executionPlan();
+
+        endpoint.headersManager().headers().getHeaderByKey("X-Value").setValue("b");
+        endpoint.send();
+
+        assertNotSame(plan, endpoint.requestManager().executionPlan());
+        assertEquals(List.of("/items a {\"name\":\"n\"}", "/items b {\"name\":\"n\"}"), List.copyOf(received));
+    }
+
+    @Test
+    void bodyChangedAfterASendIsSent() {
+        endpoint.send();
+        endpoint.getJsonRequest().set("$.name", "m");
+        endpoint.send();
+
+        assertEquals(List.of("/items a {\"name\":\"n\"}", "/items a {\"name\":\"m\"}"), List.copyOf(received));
+    }
+
+    @Test
+    void bodyHandlesDoNotChangeTheCachedBody() {
+        JsonRequest jsonRequest = endpoint.requestManager().jsonRequest();
+        endpoint.send();
+
+        jsonRequest.getBodyAsMap().put("name", "map");
+        jsonRequest.getBodyContext().set("$.name", "context");
+        Map<String, Object> nested = new LinkedHashMap<>(Map.of("id", 1));
+        jsonRequest.set("$.nested", nested);
+        nested.put("id", 2);
+        endpoint.send();
+
+        assertEquals("{\"name\":\"n\",\"nested\":{\"id\":1}}", jsonRequest.getRawBody());
+        assertEquals("/items a {\"name\":\"n\",\"nested\":{\"id\":1}}", List.copyOf(received).get(1));
+    }
+}
@@ -0,0 +1,119 @@
+package br.com.erbium.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+class HeadersTest {
+
+    @Test
+    void keepsInsertionOrderWithInterleavedNames() {
+        Headers headers = new Headers();
+        headers.addHeader(new Header("Accept", "a", "", ""));
+        headers.addHeader(new Header("X-Trace", "t", "", ""));
+        headers.addHeader(new Header("accept", "b", "", ""));
+
+        assertEquals(List.of("Accept", "X-Trace", "accept"), keys(headers));
+    }
+
+    @Test
+    void looksUpAndRemovesNamesWhateverTheirCase() {
+        Headers headers = new Headers();
+        headers.addHeader(new Header("Content-Type", "application/json", "", ""));
+        headers.addHeader(new Header("X-Trace", "t", "", ""));
+
+        assertEquals("application/json", headers.getHeaderValue("content-type"));
+        headers.removeHeader("CONTENT-TYPE");
+        assertNull(headers.getHeaderByKey("Content-Type"));
+        assertEquals(List.of("X-Trace"), keys(headers));
+    }
+
+    @Test
+    void setHeaderReplacesEveryHeaderOfTheNameAtTheFirstPosition() {
+        Headers headers = new Headers();
+        headers.addHeader(new Header("Accept", "a", "", ""));
+        headers.addHeader(new Header("X-Trace", "t", "", ""));
+        headers.addHeader(new Header("ACCEPT", "b", "", ""));
+
+        headers.setHeader(new Header("accept", "c", "", ""));
+
+        assertEquals(List.of("accept", "X-Trace"), keys(headers));
+        assertEquals("c", headers.getHeaderValue("Accept"));
+    }
+
+    @Test
+    void removeDuplicatesKeepsTheFirstHeaderOfEachName() {
+        Headers headers = new Headers();
+        headers.addHeader(new Header("Accept", "a", "", ""));
+        headers.addHeader(new Header("X-Trace", "t", "", ""));
+        headers.addHeader(new Header("accept", "b", "", ""));
+
+        headers.removeDuplicates();
+
+        assertEquals(List.of("Accept", "X-Trace"), keys(headers));
+        assertEquals("a", headers.getHeaderValue("ACCEPT"));
+    }
+
+    @Test
+    void changesThroughTheListAreSeenByLookupsAndOkHttpHeaders() {
+        Headers headers = new Headers();
+        headers.addHeader(new Header("Accept", "a", "", ""));
+        okhttp3.Headers before = headers.toOkHttpHeaders();
+        assertSame(before, headers.toOkHttpHeaders());
+        long generation = headers.generation();
+
+        headers.headers().add(new Header("X-Trace", "t", "", ""));
+        headers.getHeaders().set(0, new Header("Accept", "b", "", ""));
+
+        assertNotEquals(generation, headers.generation());
+        assertEquals("t", headers.getHeaderValue("x-trace"));
+        assertEquals("b", headers.toOkHttpHeaders().get("Accept"));
+        assertEquals("t", headers.toOkHttpHeaders().get("X-Trace"));
+    }
+
+    @Test
+    void toOkHttpHeadersKeepsTheLastValueOfARepeatedName() {
+        Headers headers = new Headers();
+        headers.addHeader(new Header("Accept", "a", "", ""));
+        headers.addHeader(new Header("", "no name", "", ""));
+        headers.addHeader(new Header("X-Null", null, "", ""));
+        headers.addHeader(new Header("accept", "b", "", ""));
+
+        okhttp3.Headers okHttpHeaders = headers.toOkHttpHeaders();
+
+        assertEquals(1, okHttpHeaders.size());
+        assertEquals("b", okHttpHeaders.get("Accept"));
+    }
+
+    @Test
+    void cloneCopiesTheHeaders() {
+        Headers headers = new Headers();
+        headers.addHeader(new Header("Accept", "a", "", ""));
+
+        Headers clone = headers.clone();
+        clone.setHeader(new Header("Accept", "b", "", ""));
+
+        assertEquals("a", headers.getHeaderValue("Accept"));
+        assertEquals("b", clone.getHeaderValue("Accept"));
+    }
+
+    private static List<String> keys(Headers headers) {
+        return headers.headers().stream().map(Header::getKey).toList();
+    }
+}
@@ -0,0 +1,144 @@
+package br.com.erbium.core;
+
+import br.com.erbium.core.enums.Method;
+import br.com.erbium.core.enums.RequestType;
+import br.com.erbium.utils.LenientJsonReader;
+import br.com.erbium.utils.LenientJsonReader.RawPlaceholder;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+class JsonBodyTemplateTest {
+
+    private final Queue<String> received = new ConcurrentLinkedQueue<>();
+    private HttpServer server;
+    private Workspace workspace;
+    private Collection collection;
+    private Endpoint endpoint;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            received.add(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+            exchange.sendResponseHeaders(204, -1);
+            exchange.close();
+        });
+        server.start();
+
+        workspace = new Workspace();
+        collection = workspace.addCollection("bodies");
+        endpoint = collection.addEndpoint("items", RequestType.JSON)
+                .setMethod(Method.POST)
+                .setUrl("http://localhost:" + server.getAddress().getPort() + "/items");
+    }
+
+    @AfterEach
+    void tearDown() {
+        workspace.close();
+        server.stop(0);
+    }
+
+    @Test
+    void rendersQuotedAndRawSlots() throws Exception {
+        JsonBodyTemplate template = JsonBodyTemplate.of(LenientJsonReader.read("{name: \"Hi {{name}}\", port: {{port}}, ids: {{ids}}}"));
+        Map<String, Object> variables = Map.of("name", "a \"b\"", "port", 8080, "ids", "[1, 2]");
+
+        assertTrue(template.hasVariables());
+        assertEquals(List.of("name", "port", "ids"), template.variableNames());
+        assertEquals("{\"name\":\"Hi a \\\"b\\\"\",\"port\":8080,\"ids\":[1,2]}", template.render(resolver(variables)));
+    }
+
+    @Test
+    void keepsTheTextOfAnUndefinedQuotedPlaceholder() throws Exception {
+        JsonBodyTemplate template = JsonBodyTemplate.of(LenientJsonReader.read("{name: \"{{name}}\"}"));
+
+        assertEquals("{\"name\":\"{{name}}\"}", template.render(resolver(Map.of())));
+    }
+
+    @Test
+    void rejectsAnUndefinedRawPlaceholderNamingTheVariable() throws Exception {
+        JsonBodyTemplate template = JsonBodyTemplate.of(LenientJsonReader.read("{port: {{port}}}"));
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> template.render(resolver(Map.of())));
+        assertTrue(e.getMessage().contains("'port'"), e.getMessage());
+        assertThrows(IllegalStateException.class, () -> JsonBodyTemplate.bind(new RawPlaceholder("port"), resolver(Map.of())));
+    }
+
+    @Test
+    void bindsACopyOfTheTree() {
+        Object tree = LenientJsonReader.read("{\"{{key}}\": [{{port}}, \"v{{version}}\"], flag: {{flag}}}");
+
+        Object bound = JsonBodyTemplate.bind(tree, resolver(Map.of("key", "k", "port", 80, "version", 2, "flag", "true")));
+
+        assertEquals(Map.of("k", List.of(80, "v2"), "flag", true), bound);
+        assertEquals(LenientJsonReader.read("{\"{{key}}\": [{{port}}, \"v{{version}}\"], flag: {{flag}}}"), tree);
+    }
+
+    @Test
+    void readersReturnTheBodyAsItWouldBeSent() {
+        collection.set("port", 8080);
+        collection.set("name", "alice");
+        endpoint.getJsonRequest().setBody("{port: {{port}}, user: {name: \"{{name}}\"}}");
+        JsonRequest jsonRequest = endpoint.requestManager().jsonRequest();
+
+        assertEquals(8080, (Integer) jsonRequest.read("$.port"));
+        assertEquals(Map.of("name", "alice"), jsonRequest.read("$.user"));
+        assertEquals(Map.of("port", 8080, "user", Map.of("name", "alice")), jsonRequest.getBodyAsMap());
+        assertEquals("alice", jsonRequest.getBodyContext().read("$.user.name"));
+    }
+
+    @Test
+    void valuesAreBoundWhenSentNotWhenSet() {
+        collection.set("name", "before");
+        endpoint.getJsonRequest().setBody("{name: \"n\"}");
+        endpoint.getJsonRequest().setString("$.name", "{{name}}");
+        collection.set("name", "after");
+
+        endpoint.send();
+
+        assertEquals(List.of("{\"name\":\"after\"}"), List.copyOf(received));
+        assertEquals("{\"name\":\"{{name}}\"}", endpoint.requestManager().jsonRequest().getRawBody());
+    }
+
+    @Test
+    void sendingWithAnUndefinedRawPlaceholderFailsNamingTheVariable() {
+        endpoint.getJsonRequest().setBody("{port: {{port}}}");
+
+        RuntimeException e = assertThrows(RuntimeException.class, () -> endpoint.send());
+        Throwable cause = e;
+        while (cause.getCause() != null && !(cause instanceof IllegalStateException)) {
+            cause = cause.getCause();
+        }
+        assertTrue(String.valueOf(cause.getMessage()).contains("'port'"), String.valueOf(e));
+        assertFalse(received.stream().anyMatch(body -> body.contains("{{port}}")));
+    }
+
+    private static VariableTemplate.Resolver resolver(Map<String, Object> variables) {
+        return name -> variables.containsKey(name) ? variables.get(name) : VariableTemplate.MISSING;
+    }
+}
@@ -0,0 +1,124 @@
+package br.com.erbium.core;
+
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+class ResponseRetentionTest {
+
+    @Test
+    void unlimitedBudgetTracksNothing() throws Exception {
+        try (ResponseRetention retention = new ResponseRetention()) {
+            retention.retain(response("{\"a\":1}"));
+
+            assertEquals(0, retention.retainedBytes());
+        }
+    }
+
+    @Test
+    void evictsTheOldestBodiesFirstAndDiscardsThemWithoutASpillDirectory() throws Exception {
+        try (ResponseRetention retention = new ResponseRetention().budgetBytes(10)) {
+            ErbiumResponse first = response("aaaa");
+            ErbiumResponse second = response("bbbb");
+            ErbiumResponse third = response("cccc");
+
+            retention.retain(first);
+            retention.retain(second);
+            retention.retain(third);
+
+            assertTrue(first.evicted());
+            assertNull(first.body());
+            assertEquals(200, first.code());
+            assertFalse(second.evicted());
+            assertEquals("cccc", third.body());
+            assertEquals(8, retention.retainedBytes());
+            assertEquals(1, retention.evictions());
+            assertEquals(0, retention.spilledBodies());
+        }
+    }
+
+    @Test
+    void theNewestResponseIsKeptEvenOverTheBudget() throws Exception {
+        try (ResponseRetention retention = new ResponseRetention().budgetBytes(2)) {
+            ErbiumResponse large = response("larger than the budget");
+
+            retention.retain(large);
+
+            assertFalse(large.evicted());
+            assertEquals("larger than the budget", large.body());
+        }
+    }
+
+    @Test
+    void spilledBodiesAreReadBackAndDeletedOnClose(@TempDir Path directory) throws Exception {
+        ErbiumResponse first = response("{\"name\":\"café\"}");
+        ResponseRetention retention = new ResponseRetention().budgetBytes(20).spillDirectory(directory);
+
+        retention.retain(first);
+        retention.retain(response("{\"name\":\"second\"}"));
+
+        assertTrue(first.evicted());
+        assertEquals(1, retention.spilledBodies());
+        assertEquals("{\"name\":\"café\"}", first.body());
+        assertEquals("café", first.jsonPath("$.name"));
+
+        retention.close();
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void releasedResponsesFreeTheirBudget() throws Exception {
+        try (ResponseRetention retention = new ResponseRetention().budgetBytes(8)) {
+            ErbiumResponse first = response("aaaa");
+            retention.retain(first);
+            retention.release(first);
+            ErbiumResponse second = response("bbbbbbbb");
+            retention.retain(second);
+
+            assertFalse(first.evicted());
+            assertEquals(8, retention.retainedBytes());
+        }
+    }
+
+    @Test
+    void rejectsANonPositiveBudget() {
+        assertThrows(IllegalArgumentException.class, () -> new ResponseRetention().budgetBytes(0));
+    }
+
+    private static ErbiumResponse response(String body) throws Exception {
+        Response response = new Response.Builder()
+                .request(new Request.Builder().url("http://localhost/").build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(200)
+                .message("OK")
+                .body(ResponseBody.create(body, MediaType.get("application/json; charset=utf-8")))
+                .build();
+        return new ErbiumResponse(response, null, 0);
+    }
+}
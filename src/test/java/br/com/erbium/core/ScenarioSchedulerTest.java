@@ -0,0 +1,141 @@
+package br.com.erbium.core;
+
+import br.com.erbium.core.base.scripts.EndpointScript;
+import br.com.erbium.core.enums.Method;
+import br.com.erbium.core.enums.RequestType;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+class ScenarioSchedulerTest {
+
+    private final Queue<String> received = new ConcurrentLinkedQueue<>();
+    private HttpServer server;
+    private Workspace workspace;
+    private Collection collection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            received.add(exchange.getRequestURI().getPath() + " " + exchange.getRequestHeaders().getFirst("Authorization"));
+            byte[] body = "{\"token\":\"t1\",\"id\":7}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        workspace = new Workspace();
+        collection = workspace.addCollection("scenario");
+        collection.set("token", "none");
+        collection.set("id", "0");
+    }
+
+    @AfterEach
+    void tearDown() {
+        workspace.close();
+        server.stop(0);
+    }
+
+    @Test
+    void consumersWaitForTheLastEarlierProducer() {
+        add("login").qrset("token", "$.token");
+        add("profile").setHeader("Authorization", "{{token}}");
+        add("orders").setUrl(url("/orders/{{id}}"));
+
+        ScenarioScheduler scheduler = ScenarioScheduler.of(collection);
+
+        assertEquals(List.of(), scheduler.dependenciesOf("login"));
+        assertEquals(List.of("login"), scheduler.dependenciesOf("profile"));
+        assertEquals(List.of(), scheduler.dependenciesOf("orders"));
+    }
+
+    @Test
+    void producersWaitForEarlierConsumersAndProducers() {
+        add("first").qrset("token", "$.token");
+        add("reader").setHeader("Authorization", "{{token}}");
+        add("second").qrset("token", "$.token");
+
+        ScenarioScheduler scheduler = ScenarioScheduler.of(collection);
+
+        assertEquals(List.of("first", "reader"), scheduler.dependenciesOf("second"));
+    }
+
+    @Test
+    void endpointScriptsMakeABarrier() {
+        add("before");
+        Endpoint scripted = add("scripted");
+        scripted.queuedEndpointScripts().put("noop", new EndpointScript() {
+        });
+        add("after");
+
+        ScenarioScheduler scheduler = ScenarioScheduler.of(collection);
+
+        assertEquals(List.of("before"), scheduler.dependenciesOf("scripted"));
+        assertEquals(List.of("scripted"), scheduler.dependenciesOf("after"));
+        assertTrue(scheduler.toString().contains("scripted [barrier]"), scheduler.toString());
+    }
+
+    @Test
+    void endpointsWithTheSameNameAreLookedUpByEndpoint() {
+        add("login").qrset("token", "$.token");
+        Endpoint first = add("profile").setHeader("Authorization", "{{token}}");
+        Endpoint second = add("other");
+        second._setName("profile");
+
+        ScenarioScheduler scheduler = ScenarioScheduler.of(collection);
+
+        assertEquals(List.of("login"), scheduler.dependenciesOf(first));
+        assertEquals(List.of(), scheduler.dependenciesOf(second));
+        assertThrows(IllegalArgumentException.class, () -> scheduler.dependenciesOf("profile"));
+        assertTrue(scheduler.toString().contains("profile consumes [token] produces [] waits for [login]"), scheduler.toString());
+        assertTrue(scheduler.toString().contains("profile consumes [] produces [] waits for []"), scheduler.toString());
+    }
+
+    @Test
+    void runSendsConsumersAfterTheirProducers() {
+        add("login").qrset("token", "$.token");
+        add("profile").setHeader("Authorization", "{{token}}");
+
+        Map<String, ErbiumResponse> responses = ScenarioScheduler.of(collection).maxConcurrency(2).run();
+
+        assertEquals(List.of("login", "profile"), List.copyOf(responses.keySet()));
+        assertEquals(List.of("/login null", "/profile t1"), List.copyOf(received));
+    }
+
+    private Endpoint add(String name) {
+        return collection.addEndpoint(name, RequestType.JSON)
+                .setMethod(Method.GET)
+                .setUrl(url("/" + name));
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + server.getAddress().getPort() + path;
+    }
+}
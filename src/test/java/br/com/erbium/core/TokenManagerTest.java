@@ -0,0 +1,138 @@
+package br.com.erbium.core;
+
+import br.com.erbium.core.enums.Method;
+import br.com.erbium.core.enums.RequestType;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+class TokenManagerTest {
+
+    private final TokenManager tokens = new TokenManager();
+    private HttpServer server;
+    private Workspace workspace;
+
+    @AfterEach
+    void tearDown() {
+        tokens.close();
+        if (workspace != null) {
+            workspace.close();
+        }
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void concurrentRequestersShareOneFetch() throws Exception {
+        int requesters = 16;
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        TokenManager.TokenSource slowSource = () -> {
+            Thread.sleep(200);
+            return new TokenManager.Token("token-" + calls.incrementAndGet(), null);
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(requesters);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < requesters; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return tokens.token("client", slowSource).value();
+                }));
+            }
+            start.countDown();
+            for (Future<String> result : results) {
+                assertEquals("token-1", result.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, tokens.fetches());
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void tokenInUseIsRefreshedAheadOfExpiry() throws Exception {
+        AtomicInteger logins = new AtomicInteger();
+        Endpoint login = loginEndpoint(logins, 2);
+        tokens.refreshAhead(Duration.ofMillis(1500));
+        TokenManager.TokenSource source = TokenManager.fromEndpoint(login, "$.access_token", "$.expires_in");
+
+        assertEquals("token-1", tokens.token("user", source).value());
+        // requested again, so the token is refreshed about 0.5 s after it was fetched
+        assertEquals("token-1", tokens.token("user", source).value());
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (tokens.fetches() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+        }
+        assertEquals(2, tokens.fetches());
+        assertEquals(2, logins.get());
+        assertEquals("token-2", tokens.token("user", source).value());
+    }
+
+    @Test
+    void tokenNotRequestedSinceItsFetchIsNotRefreshed() throws Exception {
+        AtomicInteger logins = new AtomicInteger();
+        Endpoint login = loginEndpoint(logins, 1);
+        tokens.refreshAhead(Duration.ofMillis(900));
+        TokenManager.TokenSource source = TokenManager.fromEndpoint(login, "$.access_token", "$.expires_in");
+
+        assertEquals("token-1", tokens.token("user", source).value());
+        Thread.sleep(1500);
+        assertEquals(1, tokens.fetches());
+        assertEquals(1, logins.get());
+    }
+
+    /**
+     * @return A login endpoint on a stub server returning a new token, valid for the given seconds, per call.
+     */
+    private Endpoint loginEndpoint(AtomicInteger logins, int expiresIn) throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/login", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            byte[] body = ("{\"access_token\":\"token-" + logins.incrementAndGet() + "\",\"expires_in\":" + expiresIn + "}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+
+        workspace = new Workspace();
+        Collection collection = workspace.addCollection("auth");
+        Endpoint login = collection.addEndpoint("login", RequestType.JSON)
+                .setMethod(Method.POST)
+                .setUrl("http://localhost:" + server.getAddress().getPort() + "/login");
+        login.getJsonRequest().setBody("{username: \"user\", password: \"secret\"}");
+        return login;
+    }
+}
@@ -0,0 +1,83 @@
+package br.com.erbium.core;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+class VariableTemplateTest {
+
+    @Test
+    void rendersEveryPlaceholderInOnePass() {
+        VariableTemplate template = VariableTemplate.compile("{{scheme}}://{{host}}/users/{{id}}?q={{id}}");
+
+        assertTrue(template.hasVariables());
+        assertEquals(List.of("scheme", "host", "id", "id"), template.variableNames());
+        assertEquals("https://api/users/7?q=7", template.render(Map.of("scheme", "https", "host", "api", "id", 7), ""));
+    }
+
+    @Test
+    void keepsUndefinedPlaceholdersAndRendersNullsAsGiven() {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("empty", null);
+        VariableTemplate template = VariableTemplate.compile("{{missing}}-{{empty}}");
+
+        assertEquals("{{missing}}-", template.render(variables, ""));
+        assertEquals("{{missing}}-null", template.render(variables, "null"));
+    }
+
+    @Test
+    void doesNotRenderValuesAgain() {
+        VariableTemplate template = VariableTemplate.compile("{{a}}");
+
+        assertEquals("{{b}}", template.render(Map.of("a", "{{b}}", "b", "x"), ""));
+    }
+
+    @Test
+    void keepsExtraBracesAndUnclosedPlaceholdersAsText() {
+        assertEquals("{v}", VariableTemplate.compile("{{{a}}}").render(Map.of("a", "v"), ""));
+        assertEquals("v {{b", VariableTemplate.compile("{{a}} {{b").render(Map.of("a", "v", "b", "w"), ""));
+    }
+
+    @Test
+    void sourcesWithoutPlaceholdersAreReturnedAsIs() {
+        String source = "plain text";
+        VariableTemplate template = VariableTemplate.compile(source);
+
+        assertFalse(template.hasVariables());
+        assertSame(source, template.render(Map.of(), ""));
+    }
+
+    @Test
+    void compiledTemplatesAreCached() {
+        assertSame(VariableTemplate.compile("cached {{x}}"), VariableTemplate.compile("cached {{x}}"));
+    }
+
+    @Test
+    void environmentsRenderThroughTheirScopes() {
+        CollectionEnvironment parent = new CollectionEnvironment();
+        parent.set("host", "api").set("port", 80);
+        CollectionEnvironment scope = parent.newScope(null);
+        scope.set("port", 8080);
+
+        assertEquals("api:8080{{path}}", scope.replaceVars("{{host}}:{{port}}{{path}}"));
+        assertEquals("api:80", parent.render(VariableTemplate.compile("{{host}}:{{port}}")));
+    }
+}
@@ -0,0 +1,78 @@
+package br.com.erbium.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+class JsonPathExtractorTest {
+
+    @Test
+    void extractsScalarsInOnePass() throws Exception {
+        JsonPathExtractor extractor = JsonPathExtractor.compile(List.of("$.user.name", "$.items[1].id", "$.count", "$.flag", "$.none"));
+
+        Map<String, Object> values = extractor.extract("{\"user\":{\"name\":\"a\"},\"items\":[{\"id\":1},{\"id\":2}],\"count\":3000000000,\"flag\":true,\"none\":null}");
+
+        assertEquals("a", values.get("$.user.name"));
+        assertEquals(2, values.get("$.items[1].id"));
+        assertEquals(3000000000L, values.get("$.count"));
+        assertEquals(true, values.get("$.flag"));
+        assertNull(values.get("$.none"));
+    }
+
+    @Test
+    void stopsReadingOnceEveryPathIsResolved() throws Exception {
+        JsonPathExtractor extractor = JsonPathExtractor.compile(List.of("$.token"));
+
+        // The rest of the document is never read, so its syntax error goes unnoticed
+        Map<String, Object> values = extractor.extract("{\"token\":\"t\",\"items\":[1, 2, !!!");
+
+        assertEquals(Map.of("$.token", "t"), values);
+        assertThrows(IOException.class, () -> JsonPathExtractor.compile(List.of("$.missing")).extract("{\"token\":\"t\",\"items\":[1, 2, !!!"));
+    }
+
+    @Test
+    void marksMissingPathsAsNotFound() throws Exception {
+        JsonPathExtractor extractor = JsonPathExtractor.compile(List.of("$.a.b", "$.list[5]"));
+
+        Map<String, Object> values = extractor.extract("{\"a\":{\"c\":1},\"list\":[1]}");
+
+        assertSame(JsonPathExtractor.NOT_FOUND, values.get("$.a.b"));
+        assertSame(JsonPathExtractor.NOT_FOUND, values.get("$.list[5]"));
+    }
+
+    @Test
+    void leavesContainersAndComplexPathsToTheCaller() throws Exception {
+        JsonPathExtractor extractor = JsonPathExtractor.compile(List.of("$.user", "$.items[*].id", "$.items[-1]", "$.user.name"));
+
+        Map<String, Object> values = extractor.extract("{\"user\":{\"name\":\"a\"},\"items\":[{\"id\":1}]}");
+
+        assertEquals(Map.of("$.user.name", "a"), values);
+        assertFalse(values.containsKey("$.user"));
+    }
+
+    @Test
+    void mergesDuplicatePaths() {
+        JsonPathExtractor extractor = JsonPathExtractor.compile(List.of("$.a", "$.b", "$.a"));
+
+        assertEquals(List.of("$.a", "$.b"), extractor.paths());
+    }
+}
@@ -0,0 +1,62 @@
+package br.com.erbium.utils;
+
+import br.com.erbium.utils.LenientJsonReader.RawPlaceholder;
+import com.jayway.jsonpath.InvalidJsonException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Author: Marcos Ghiraldelli (https://github.com/marcosbelfastdev/)
+ *
+ * License: MIT
+ *
+ * Trademark Notice:
+ * The name ERBIUM as it relates to software for testing RESTful APIs,
+ * all associated logos, wordmarks, and visual representations of the ERBIUM brand,
+ * and all related consultancy services, technical support, and training offerings
+ * under the ERBIUM name are protected trademarks.
+ */
+class LenientJsonReaderTest {
+
+    @Test
+    void readsUnquotedKeysSingleQuotesAndTrailingCommas() {
+        Object tree = LenientJsonReader.read("{name: 'x', \"tags\": [1, 2.5, true, null,], }");
+
+        Map<String, Object> expected = new java.util.LinkedHashMap<>();
+        expected.put("name", "x");
+        expected.put("tags", java.util.Arrays.asList(1, 2.5, true, null));
+        assertEquals(expected, tree);
+    }
+
+    @Test
+    void keepsPlaceholdersUnbound() {
+        Object tree = LenientJsonReader.read("{\"{{key}}\": {{port}}, greeting: \"Hello {{name}}\"}");
+
+        assertEquals(Map.of("{{key}}", new RawPlaceholder("port"), "greeting", "Hello {{name}}"), tree);
+    }
+
+    @Test
+    void doesNotMistakeTextInStringsForKeys() {
+        Object tree = LenientJsonReader.read("{\"text\": \"a, b: c\"}");
+
+        assertEquals(Map.of("text", "a, b: c"), tree);
+    }
+
+    @Test
+    void readsBigNumbersWithoutLosingPrecision() {
+        Object tree = LenientJsonReader.read("[2147483648, 92233720368547758070]");
+
+        assertEquals(List.of(2147483648L, new java.math.BigInteger("92233720368547758070")), tree);
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        assertThrows(InvalidJsonException.class, () -> LenientJsonReader.read("{name: }"));
+        assertThrows(InvalidJsonException.class, () -> LenientJsonReader.read("[1] 2"));
+    }
+}